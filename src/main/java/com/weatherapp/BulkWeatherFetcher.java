@@ -0,0 +1,251 @@
+package com.weatherapp;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.weatherapp.models.Units;
+import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherSnapshot;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Fetches current weather for many cities with a bounded number of requests in flight.
+ * <p>
+ * Results are delivered to a callback as each city completes (in completion order, possibly
+ * from several threads at once), and a failure for one city is reported as that city's
+ * {@link Result} instead of aborting the batch. Optionally the WeatherAPI bulk request form
+ * ({@code q=bulk}, up to {@value #BULK_CHUNK_SIZE} locations per POST) can be used instead of
+ * one request per city; it is only available on paid WeatherAPI plans.
+ */
+public class BulkWeatherFetcher {
+    static final int BULK_CHUNK_SIZE = 50;
+
+    private final WeatherService weatherService;
+    private final int maxConcurrency;
+    private final boolean useBulkRequests;
+    private final Duration timeout;
+
+    public BulkWeatherFetcher(WeatherService weatherService, int maxConcurrency) {
+        this(weatherService, maxConcurrency, false, WeatherService.DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    public BulkWeatherFetcher(WeatherService weatherService, int maxConcurrency, boolean useBulkRequests, Duration timeout) {
+        this.weatherService = weatherService;
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        this.useBulkRequests = useBulkRequests;
+        this.timeout = timeout;
+    }
+
+    /**
+     * Fetch all {@code cities}, calling {@code onResult} once per city as results arrive.
+     * The returned future completes once every city has been reported.
+     */
+    public CompletableFuture<Void> fetchAll(Collection<String> cities, String units, Consumer<Result> onResult) {
+        List<Task> tasks = new ArrayList<>();
+        if (useBulkRequests) {
+            List<String> chunk = new ArrayList<>();
+            for (String city : cities) {
+                chunk.add(city);
+                if (chunk.size() == BULK_CHUNK_SIZE) {
+                    tasks.add(bulkTask(chunk, units, onResult));
+                    chunk = new ArrayList<>();
+                }
+            }
+            if (!chunk.isEmpty()) tasks.add(bulkTask(chunk, units, onResult));
+        } else {
+            for (String city : cities) tasks.add(singleTask(city, units, onResult));
+        }
+
+        CompletableFuture<Void> done = new CompletableFuture<>();
+        if (tasks.isEmpty()) {
+            done.complete(null);
+            return done;
+        }
+        Iterator<Task> it = tasks.iterator();
+        AtomicInteger remaining = new AtomicInteger(tasks.size());
+        int initial = Math.min(maxConcurrency, tasks.size());
+        for (int i = 0; i < initial; i++) startNext(it, remaining, done);
+        return done;
+    }
+
+    /**
+     * Blocking convenience wrapper around {@link #fetchAll} that collects every result.
+     */
+    public List<Result> fetchAllBlocking(Collection<String> cities, String units) throws IOException, InterruptedException {
+        List<Result> results = new ArrayList<>();
+        WeatherService.await(fetchAll(cities, units, r -> {
+            synchronized (results) {
+                results.add(r);
+            }
+        }));
+        return results;
+    }
+
+    // each completion pulls the next task, so at most maxConcurrency tasks are ever running;
+    // tasks that finish synchronously (cache hits) are drained in a loop instead of recursing
+    private void startNext(Iterator<Task> it, AtomicInteger remaining, CompletableFuture<Void> done) {
+        while (true) {
+            Task next;
+            synchronized (it) {
+                if (!it.hasNext()) return;
+                next = it.next();
+            }
+            CompletableFuture<?> f = next.run();
+            if (!f.isDone()) {
+                f.whenComplete((v, ex) -> {
+                    if (remaining.decrementAndGet() == 0) done.complete(null);
+                    startNext(it, remaining, done);
+                });
+                return;
+            }
+            if (remaining.decrementAndGet() == 0) done.complete(null);
+        }
+    }
+
+    private Task singleTask(String city, String units, Consumer<Result> onResult) {
+        return () -> {
+            long start = System.nanoTime();
+            return call(() -> weatherService.getCurrentWeatherAsync(city, units, timeout))
+                    .handle((wd, ex) -> {
+                        deliver(onResult, new Result(city, wd, unwrap(ex), System.nanoTime() - start));
+                        return null;
+                    });
+        };
+    }
+
+    private Task bulkTask(List<String> chunk, String units, Consumer<Result> onResult) {
+        return () -> {
+            long start = System.nanoTime();
+            JsonArray locations = new JsonArray();
+            for (int i = 0; i < chunk.size(); i++) {
+                JsonObject loc = new JsonObject();
+                loc.addProperty("q", chunk.get(i));
+                loc.addProperty("custom_id", Integer.toString(i));
+                locations.add(loc);
+            }
+            JsonObject body = new JsonObject();
+            body.add("locations", locations);
+            return call(() -> weatherService.fetchBulkAsync(body.toString(), timeout))
+                    .handle((json, ex) -> {
+                        long latency = System.nanoTime() - start;
+                        if (ex != null) {
+                            for (String city : chunk) deliver(onResult, new Result(city, null, unwrap(ex), latency));
+                        } else {
+                            deliverBulk(json, chunk, units, latency, onResult);
+                        }
+                        return null;
+                    });
+        };
+    }
+
+    private void deliverBulk(String json, List<String> chunk, String units, long latency, Consumer<Result> onResult) {
+        boolean[] seen = new boolean[chunk.size()];
+        try {
+            JsonArray items = JsonParser.parseString(json).getAsJsonObject().getAsJsonArray("bulk");
+            for (JsonElement item : items) {
+                JsonObject query = item.getAsJsonObject().getAsJsonObject("query");
+                int idx = Integer.parseInt(query.get("custom_id").getAsString());
+                if (idx < 0 || idx >= chunk.size() || seen[idx]) continue;
+                seen[idx] = true;
+                String city = chunk.get(idx);
+                if (query.has("error")) {
+                    String msg = query.getAsJsonObject("error").get("message").getAsString();
+                    deliver(onResult, new Result(city, null, new IOException(msg), latency));
+                    continue;
+                }
+                try {
+                    WeatherSnapshot snap = WeatherApiStreamParser.parse(new StringReader(query.toString()), 0);
+                    // prime the per-city cache so later single lookups are free
+                    weatherService.cacheCurrent(city, snap);
+                    deliver(onResult, new Result(city, snap.current().toWeatherData(Units.of(units)), null, latency));
+                } catch (IOException | RuntimeException ex) {
+                    deliver(onResult, new Result(city, null, ex, latency));
+                }
+            }
+        } catch (RuntimeException ex) {
+            // malformed payload; cities not yet reported fail below
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            if (!seen[i]) {
+                deliver(onResult, new Result(chunk.get(i), null, new IOException("No result in bulk response"), latency));
+            }
+        }
+    }
+
+    // a request that throws before it is sent (key resolution, a rejected executor) fails its
+    // future instead, so its cities are still reported and the batch moves on
+    private static <T> CompletableFuture<T> call(Supplier<CompletableFuture<T>> request) {
+        try {
+            return request.get();
+        } catch (RuntimeException ex) {
+            return CompletableFuture.failedFuture(ex);
+        }
+    }
+
+    private static void deliver(Consumer<Result> onResult, Result r) {
+        try {
+            onResult.accept(r);
+        } catch (RuntimeException ex) {
+            // a failing callback must not stall the batch
+        }
+    }
+
+    private static Throwable unwrap(Throwable ex) {
+        while (ex instanceof CompletionException && ex.getCause() != null) ex = ex.getCause();
+        return ex;
+    }
+
+    private interface Task {
+        CompletableFuture<?> run();
+    }
+
+    /**
+     * Outcome for one city: either {@link #getWeather()} or {@link #getError()} is non-null.
+     */
+    public static class Result {
+        private final String city;
+        private final WeatherData weather;
+        private final Throwable error;
+        private final long latencyNanos;
+
+        public Result(String city, WeatherData weather, Throwable error, long latencyNanos) {
+            this.city = city;
+            this.weather = weather;
+            this.error = error;
+            this.latencyNanos = latencyNanos;
+        }
+
+        public String getCity() {
+            return city;
+        }
+
+        public WeatherData getWeather() {
+            return weather;
+        }
+
+        public Throwable getError() {
+            return error;
+        }
+
+        public boolean isSuccess() {
+            return error == null && weather != null;
+        }
+
+        public long getLatencyNanos() {
+            return latencyNanos;
+        }
+    }
+}
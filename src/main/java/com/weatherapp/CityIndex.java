@@ -0,0 +1,236 @@
+package com.weatherapp;
+
+import java.io.BufferedReader;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Immutable prefix index over city names for search-as-you-type.
+ * <p>
+ * Names are folded (lower case, accents stripped) and kept in one sorted array, so a query is a
+ * binary search for the first match followed by a scan of the matching range. One- and
+ * two-character prefixes, whose ranges can span thousands of names, are answered from top lists
+ * computed at build time, so every lookup stays well under a millisecond. Suggestions are ranked
+ * by search history (each past search weighs more the more recent it is, so frequency and
+ * recency both count) and then by the order of the gazetteer, which lists prominent cities first.
+ * Build a new instance when the history changes; queries never lock.
+ */
+public final class CityIndex {
+    private static final String BUNDLED = "/cities/cities.txt";
+    private static final Pattern MARKS = Pattern.compile("\\p{M}+");
+    /** Past searches lose half their weight every this many days. */
+    private static final double HISTORY_HALF_LIFE_DAYS = 14.0;
+    /** Any searched city outranks every city that was never searched. */
+    private static final double HISTORY_WEIGHT = 10.0;
+    static final int MAX_LIMIT = 16;
+
+    private static final CityIndex EMPTY = new CityIndex(new String[0], new String[0], new double[0]);
+    private static volatile List<String> bundled;
+
+    private final String[] keys;      // folded names, sorted
+    private final String[] names;     // display names, parallel to keys
+    private final double[] scores;    // parallel to keys
+    private final Map<String, int[]> shortPrefixTop = new HashMap<>();
+
+    private CityIndex(String[] keys, String[] names, double[] scores) {
+        this.keys = keys;
+        this.names = names;
+        this.scores = scores;
+        buildShortPrefixTop();
+    }
+
+    public static CityIndex empty() {
+        return EMPTY;
+    }
+
+    /**
+     * Gazetteer bundled with the app ({@code "City, Country"} per line), read on first call;
+     * empty if the resource is missing.
+     */
+    public static List<String> bundled() {
+        List<String> b = bundled;
+        if (b == null) {
+            b = Collections.unmodifiableList(loadBundled());
+            bundled = b;
+        }
+        return b;
+    }
+
+    private static List<String> loadBundled() {
+        List<String> out = new ArrayList<>();
+        try (InputStream in = CityIndex.class.getResourceAsStream(BUNDLED)) {
+            if (in == null) return out;
+            BufferedReader r = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+            String line;
+            while ((line = r.readLine()) != null) {
+                line = line.trim();
+                if (!line.isEmpty() && !line.startsWith("#")) out.add(line);
+            }
+        } catch (Exception ex) {
+            // ignore; suggestions fall back to history only
+        }
+        return out;
+    }
+
+    /**
+     * Build an index of {@code gazetteer} names (most prominent first) plus every city in
+     * {@code history}. A searched city boosts the first gazetteer entry with that name, or is
+     * added on its own if the gazetteer does not know it.
+     */
+    public static CityIndex build(List<String> gazetteer, List<HistoryManager.HistoryEntry> history, long nowEpochSeconds) {
+        Map<String, Integer> byDisplay = new HashMap<>();
+        Map<String, Integer> byCity = new HashMap<>();
+        List<String> names = new ArrayList<>(gazetteer.size() + history.size());
+        List<Double> scores = new ArrayList<>(gazetteer.size() + history.size());
+        int n = gazetteer.size();
+        for (int i = 0; i < n; i++) {
+            String name = gazetteer.get(i);
+            String key = fold(name);
+            if (key.isEmpty() || byDisplay.containsKey(key)) continue;
+            byDisplay.put(key, names.size());
+            byCity.putIfAbsent(fold(cityPart(name)), names.size());
+            names.add(name);
+            scores.add(1.0 - (double) i / Math.max(1, n)); // earlier lines rank higher
+        }
+        for (HistoryManager.HistoryEntry h : history) {
+            String city = h.getCity() == null ? "" : h.getCity().trim();
+            String key = fold(city);
+            if (key.isEmpty()) continue;
+            Integer idx = byDisplay.get(key);
+            if (idx == null) idx = byCity.get(key);
+            if (idx == null) {
+                idx = names.size();
+                byDisplay.put(key, idx);
+                names.add(city);
+                scores.add(0.0);
+            }
+            double ageDays = Math.max(0, nowEpochSeconds - h.getTimestamp()) / 86400.0;
+            scores.set(idx, scores.get(idx) + HISTORY_WEIGHT * Math.pow(0.5, ageDays / HISTORY_HALF_LIFE_DAYS));
+        }
+
+        Integer[] order = new Integer[names.size()];
+        String[] folded = new String[names.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+            folded[i] = fold(names.get(i));
+        }
+        Arrays.sort(order, (a, b) -> folded[a].compareTo(folded[b]));
+        String[] k = new String[order.length];
+        String[] d = new String[order.length];
+        double[] s = new double[order.length];
+        for (int i = 0; i < order.length; i++) {
+            k[i] = folded[order[i]];
+            d[i] = names.get(order[i]);
+            s[i] = scores.get(order[i]);
+        }
+        return new CityIndex(k, d, s);
+    }
+
+    // best MAX_LIMIT entries for every one- and two-character prefix, in one pass per length
+    private void buildShortPrefixTop() {
+        for (int len = 1; len <= 2; len++) {
+            int i = 0;
+            while (i < keys.length) {
+                if (keys[i].length() < len) {
+                    i++;
+                    continue;
+                }
+                String prefix = keys[i].substring(0, len);
+                int end = i;
+                while (end < keys.length && keys[end].startsWith(prefix)) end++;
+                shortPrefixTop.put(prefix, top(i, end, MAX_LIMIT));
+                i = end;
+            }
+        }
+    }
+
+    /**
+     * Up to {@code limit} names starting with {@code prefix} (case and accents ignored), best
+     * ranked first.
+     */
+    public List<String> suggest(String prefix, int limit) {
+        String p = fold(prefix);
+        int max = Math.min(limit, MAX_LIMIT);
+        if (p.isEmpty() || max <= 0) return Collections.emptyList();
+        int[] hits = p.length() <= 2 ? shortPrefixTop.get(p) : null;
+        if (hits == null) {
+            if (p.length() <= 2) return Collections.emptyList();
+            int from = lowerBound(p);
+            hits = top(from, rangeEnd(from, p), max);
+        }
+        List<String> out = new ArrayList<>(Math.min(max, hits.length));
+        for (int i = 0; i < hits.length && i < max; i++) out.add(names[hits[i]]);
+        return out;
+    }
+
+    // indices of the best-scored entries in [from, to), by insertion into a small sorted array
+    private int[] top(int from, int to, int k) {
+        int[] best = new int[Math.min(k, to - from)];
+        int size = 0;
+        for (int i = from; i < to; i++) {
+            if (size == best.length && scores[i] <= scores[best[size - 1]]) continue;
+            int pos = size < best.length ? size++ : size - 1;
+            while (pos > 0 && scores[best[pos - 1]] < scores[i]) {
+                best[pos] = best[pos - 1];
+                pos--;
+            }
+            best[pos] = i;
+        }
+        return best;
+    }
+
+    /**
+     * Number of entries a lookup for {@code prefix} ranks; 0 when it is answered from the
+     * precomputed short-prefix lists.
+     */
+    int scanned(String prefix) {
+        String p = fold(prefix);
+        if (p.length() <= 2) return 0;
+        int from = lowerBound(p);
+        return rangeEnd(from, p) - from;
+    }
+
+    private int rangeEnd(int from, String p) {
+        int to = from;
+        while (to < keys.length && keys[to].startsWith(p)) to++;
+        return to;
+    }
+
+    private int lowerBound(String p) {
+        int lo = 0, hi = keys.length;
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            if (keys[mid].compareTo(p) < 0) lo = mid + 1;
+            else hi = mid;
+        }
+        return lo;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+
+    private static String cityPart(String name) {
+        int comma = name.indexOf(',');
+        return comma >= 0 ? name.substring(0, comma) : name;
+    }
+
+    /**
+     * Lower-case, accent-free, whitespace-collapsed form used for matching.
+     */
+    static String fold(String s) {
+        if (s == null) return "";
+        String n = Normalizer.normalize(s.trim(), Normalizer.Form.NFD);
+        return MARKS.matcher(n).replaceAll("").toLowerCase(Locale.ROOT).replaceAll("\\s+", " ");
+    }
+}
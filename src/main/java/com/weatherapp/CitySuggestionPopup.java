@@ -0,0 +1,140 @@
+package com.weatherapp;
+
+import javax.swing.*;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Dimension;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+
+/**
+ * Drop-down of city suggestions under a text field, refreshed on every keystroke from a
+ * {@link CityIndex}. Lookups are sub-millisecond, so they run directly on the EDT; the index
+ * itself is built elsewhere and swapped in with {@link #setIndex}. Up/Down move the selection,
+ * Enter or a click accepts it, Escape closes the list.
+ */
+public class CitySuggestionPopup {
+    private final JTextField field;
+    private final int maxSuggestions;
+    private final JPopupMenu popup = new JPopupMenu();
+    private final DefaultListModel<String> model = new DefaultListModel<>();
+    private final JList<String> list = new JList<>(model);
+    private volatile CityIndex index = CityIndex.empty();
+    private boolean accepting;
+
+    public CitySuggestionPopup(JTextField field, int maxSuggestions) {
+        this.field = field;
+        this.maxSuggestions = maxSuggestions;
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        popup.setFocusable(false);
+        popup.add(new JScrollPane(list));
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                refresh();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                // attribute changes only
+            }
+        });
+        // runs before the field's own Enter action, so an accepted suggestion is what gets searched
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                if (!popup.isVisible()) return;
+                switch (e.getKeyCode()) {
+                    case KeyEvent.VK_DOWN -> {
+                        move(1);
+                        e.consume();
+                    }
+                    case KeyEvent.VK_UP -> {
+                        move(-1);
+                        e.consume();
+                    }
+                    case KeyEvent.VK_ENTER -> {
+                        if (list.getSelectedIndex() >= 0) accept(list.getSelectedValue());
+                        popup.setVisible(false);
+                    }
+                    case KeyEvent.VK_ESCAPE -> {
+                        popup.setVisible(false);
+                        e.consume();
+                    }
+                    default -> {
+                    }
+                }
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int i = list.locationToIndex(e.getPoint());
+                if (i < 0) return;
+                accept(model.get(i));
+                popup.setVisible(false);
+                field.postActionEvent();
+            }
+        });
+    }
+
+    /**
+     * Replace the index used for lookups; safe to call from any thread.
+     */
+    public void setIndex(CityIndex index) {
+        this.index = index != null ? index : CityIndex.empty();
+    }
+
+    private void refresh() {
+        if (accepting) return;
+        // the document is locked while listeners run; show the popup after it settles
+        SwingUtilities.invokeLater(this::update);
+    }
+
+    private void update() {
+        String text = field.getText();
+        List<String> hits = index.suggest(text, maxSuggestions);
+        if (hits.isEmpty() || !field.isShowing()
+                || (hits.size() == 1 && hits.get(0).equalsIgnoreCase(text.trim()))) {
+            popup.setVisible(false);
+            return;
+        }
+        model.clear();
+        hits.forEach(model::addElement);
+        list.clearSelection();
+        list.setVisibleRowCount(hits.size());
+        // size to the new rows; a visible popup is re-laid out by setPopupSize
+        popup.setPreferredSize(null);
+        Dimension pref = popup.getPreferredSize();
+        popup.setPopupSize(new Dimension(Math.max(field.getWidth(), pref.width), pref.height));
+        if (!popup.isVisible()) popup.show(field, 0, field.getHeight());
+    }
+
+    private void move(int delta) {
+        int n = model.getSize();
+        if (n == 0) return;
+        int i = list.getSelectedIndex() + delta;
+        i = Math.max(0, Math.min(n - 1, i));
+        list.setSelectedIndex(i);
+        list.ensureIndexIsVisible(i);
+    }
+
+    private void accept(String value) {
+        accepting = true;
+        try {
+            field.setText(value);
+        } finally {
+            accepting = false;
+        }
+    }
+}
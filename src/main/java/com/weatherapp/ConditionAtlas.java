@@ -0,0 +1,126 @@
+package com.weatherapp;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Built-in sprite atlas with a glyph for every known WeatherAPI condition icon, day and night.
+ * <p>
+ * The atlas ({@code /icons/conditions-atlas.png}) is a grid of square cells; its index
+ * ({@code /icons/conditions-atlas.properties}) maps {@code <iconNumber>.day|night} to a
+ * {@code column,row} cell. CDN icon URLs such as
+ * {@code //cdn.weatherapi.com/weather/64x64/night/296.png} resolve to a cell without any
+ * disk or network access, so the UI can show real icons on first paint even offline.
+ */
+public final class ConditionAtlas {
+    private static final String IMAGE = "/icons/conditions-atlas.png";
+    private static final String INDEX = "/icons/conditions-atlas.properties";
+    private static final Pattern CDN_ICON = Pattern.compile("cdn\\.weatherapi\\.com/weather/\\d+x\\d+/(day|night)/(\\d+)\\.png$");
+
+    private static volatile ConditionAtlas shared;
+    private static volatile boolean sharedFailed;
+
+    private final BufferedImage atlas;
+    private final int cell;
+    private final Map<String, int[]> cells;
+
+    private ConditionAtlas(BufferedImage atlas, int cell, Map<String, int[]> cells) {
+        this.atlas = atlas;
+        this.cell = cell;
+        this.cells = cells;
+    }
+
+    /**
+     * The bundled atlas, decoded on first call; null if the resource is missing or unreadable.
+     */
+    public static ConditionAtlas shared() {
+        ConditionAtlas a = shared;
+        if (a != null || sharedFailed) return a;
+        synchronized (ConditionAtlas.class) {
+            if (shared == null && !sharedFailed) {
+                shared = load();
+                sharedFailed = shared == null;
+            }
+            return shared;
+        }
+    }
+
+    /**
+     * The bundled atlas if it has already been decoded, otherwise null; never blocks on I/O.
+     */
+    public static ConditionAtlas ifLoaded() {
+        return shared;
+    }
+
+    private static ConditionAtlas load() {
+        try (InputStream img = ConditionAtlas.class.getResourceAsStream(IMAGE);
+             InputStream idx = ConditionAtlas.class.getResourceAsStream(INDEX)) {
+            if (img == null || idx == null) return null;
+            BufferedImage atlas = ImageIO.read(img);
+            Properties p = new Properties();
+            p.load(idx);
+            int cell = Integer.parseInt(p.getProperty("cell", "64").trim());
+            Map<String, int[]> cells = new HashMap<>();
+            for (String key : p.stringPropertyNames()) {
+                if (key.equals("cell")) continue;
+                String[] xy = p.getProperty(key).split(",");
+                int col = Integer.parseInt(xy[0].trim());
+                int row = Integer.parseInt(xy[1].trim());
+                if ((col + 1) * cell <= atlas.getWidth() && (row + 1) * cell <= atlas.getHeight()) {
+                    cells.put(key, new int[]{col, row});
+                }
+            }
+            return new ConditionAtlas(atlas, cell, cells);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Atlas key ({@code "296.night"}) for a WeatherAPI CDN icon URL, or null for other URLs.
+     */
+    static String keyFor(String url) {
+        if (url == null) return null;
+        Matcher m = CDN_ICON.matcher(url);
+        return m.find() ? m.group(2) + "." + m.group(1) : null;
+    }
+
+    /**
+     * True if {@code url} is a WeatherAPI condition icon URL, whether or not the atlas covers it.
+     */
+    public static boolean isConditionIconUrl(String url) {
+        return keyFor(url) != null;
+    }
+
+    public boolean covers(String url) {
+        String key = keyFor(url);
+        return key != null && cells.containsKey(key);
+    }
+
+    /**
+     * Copy of the cell for {@code url}, or null when the atlas has no glyph for it.
+     */
+    public BufferedImage slice(String url) {
+        String key = keyFor(url);
+        int[] c = key != null ? cells.get(key) : null;
+        if (c == null) return null;
+        BufferedImage out = new BufferedImage(cell, cell, BufferedImage.TYPE_INT_ARGB);
+        int[] px = atlas.getRGB(c[0] * cell, c[1] * cell, cell, cell, null, 0, cell);
+        out.setRGB(0, 0, cell, cell, px, 0, cell);
+        return out;
+    }
+
+    public int getCellSize() {
+        return cell;
+    }
+
+    public int size() {
+        return cells.size();
+    }
+}
@@ -2,25 +2,43 @@ package com.weatherapp;
 
 import com.weatherapp.models.ForecastEntry;
 import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
 
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
 
 /**
  * Simple console runner to verify WeatherService and API connectivity without launching the GUI.
  *
- * Usage: java -cp target/weather-app-1.0-jar-with-dependencies.jar com.weatherapp.ConsoleRunner [city] [metric|imperial]
+ * Usage: java -cp target/weather-app-1.0-jar-with-dependencies.jar com.weatherapp.ConsoleRunner [city] [metric|imperial] [days]
+ * <br>
+ * Bulk mode: ConsoleRunner --bulk cities.txt [metric|imperial] [concurrency] [--bulk-api]
+ * reads one city per line (blank lines and lines starting with # are skipped) and prints
+ * throughput and latency percentiles.
  */
 public class ConsoleRunner {
     public static void main(String[] args) {
+        if (args.length > 0 && args[0].equals("--bulk")) {
+            runBulk(args);
+            return;
+        }
         String city = args.length > 0 ? args[0] : "London";
         String units = args.length > 1 ? args[1] : "metric";
+        int days = args.length > 2 ? Integer.parseInt(args[2]) : WeatherService.DEFAULT_FORECAST_DAYS;
 
-        System.out.println("ConsoleRunner: fetching weather for '" + city + "' (units=" + units + ")");
+        System.out.println("ConsoleRunner: fetching weather for '" + city + "' (units=" + units + ", days=" + days + ")");
 
         try {
             WeatherService ws = new WeatherService();
-            WeatherData wd = ws.getCurrentWeather(city, units);
-            List<ForecastEntry> fc = ws.getForecast(city, units);
+            WeatherReport report = ws.getWeather(city, units, days);
+            WeatherData wd = report.getCurrent();
+            List<ForecastEntry> fc = report.getHourly().next(5, Instant.now().getEpochSecond());
 
             System.out.println("Current:");
             System.out.printf("  Location: %s, %s\n", wd.getCityName(), wd.getCountry());
@@ -30,10 +48,8 @@ public class ConsoleRunner {
             System.out.printf("  Wind: %.1f %s\n", wd.getWindSpeed(), units.equals("metric") ? "m/s" : "mph");
             System.out.println();
 
-            System.out.println("Forecast (next items):");
-            int limit = Math.min(5, fc.size());
-            for (int i = 0; i < limit; i++) {
-                ForecastEntry e = fc.get(i);
+            System.out.printf("Forecast (next items of %d hours):\n", report.getHourly().size());
+            for (ForecastEntry e : fc) {
                 System.out.printf("  - %d: %.1f %s — %s\n", e.getTimestamp(), e.getTemperature(),
                         units.equals("metric") ? "°C" : "°F", e.getDescription());
             }
@@ -43,4 +59,66 @@ public class ConsoleRunner {
             System.exit(2);
         }
     }
+
+    private static void runBulk(String[] args) {
+        List<String> rest = new ArrayList<>(Arrays.asList(args).subList(1, args.length));
+        boolean bulkApi = rest.remove("--bulk-api");
+        if (rest.isEmpty()) {
+            System.err.println("Usage: ConsoleRunner --bulk <cities-file> [metric|imperial] [concurrency] [--bulk-api]");
+            System.exit(1);
+        }
+        Path file = Path.of(rest.get(0));
+        String units = rest.size() > 1 ? rest.get(1) : "metric";
+        int concurrency = rest.size() > 2 ? Integer.parseInt(rest.get(2)) : 16;
+
+        try {
+            List<String> cities = Files.readAllLines(file).stream()
+                    .map(String::trim)
+                    .filter(l -> !l.isEmpty() && !l.startsWith("#"))
+                    .collect(Collectors.toList());
+            System.out.printf("ConsoleRunner: bulk fetching %d cities (units=%s, concurrency=%d%s)\n",
+                    cities.size(), units, concurrency, bulkApi ? ", bulk API" : "");
+
+            WeatherService ws = new WeatherService();
+            BulkWeatherFetcher fetcher = new BulkWeatherFetcher(ws, concurrency, bulkApi, WeatherService.DEFAULT_REQUEST_TIMEOUT);
+            List<Long> latencies = new ArrayList<>();
+            AtomicInteger failures = new AtomicInteger();
+            long start = System.nanoTime();
+            fetcher.fetchAll(cities, units, r -> {
+                synchronized (latencies) {
+                    latencies.add(r.getLatencyNanos());
+                    if (r.isSuccess()) {
+                        WeatherData wd = r.getWeather();
+                        System.out.printf("  %-24s %6.1f %s  %s\n", r.getCity(), wd.getTemperature(),
+                                units.equals("metric") ? "°C" : "°F", wd.getDescription());
+                    } else {
+                        failures.incrementAndGet();
+                        System.out.printf("  %-24s FAILED: %s\n", r.getCity(), r.getError());
+                    }
+                }
+            }).join();
+            double seconds = (System.nanoTime() - start) / 1e9;
+
+            long[] sorted = latencies.stream().mapToLong(Long::longValue).sorted().toArray();
+            System.out.println();
+            System.out.printf("Completed %d cities (%d failed) in %.2f s — %.1f cities/s\n",
+                    sorted.length, failures.get(), seconds, seconds > 0 ? sorted.length / seconds : 0.0);
+            System.out.printf("Latency ms: p50=%.1f p90=%.1f p99=%.1f max=%.1f\n",
+                    percentile(sorted, 50), percentile(sorted, 90), percentile(sorted, 99), percentile(sorted, 100));
+            System.out.printf("Cache: %d hits, %d misses\n", ws.getCache().getHitCount(), ws.getCache().getMissCount());
+        } catch (Exception ex) {
+            System.err.println("Error in bulk fetch: " + ex.getMessage());
+            ex.printStackTrace(System.err);
+            System.exit(2);
+        }
+    }
+
+    /**
+     * Nearest-rank percentile of {@code sorted} (nanoseconds), returned in milliseconds.
+     */
+    static double percentile(long[] sorted, int p) {
+        if (sorted.length == 0) return 0.0;
+        int rank = (int) Math.ceil(p / 100.0 * sorted.length);
+        return sorted[Math.max(0, Math.min(sorted.length - 1, rank - 1))] / 1e6;
+    }
 }
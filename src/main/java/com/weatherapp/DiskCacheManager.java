@@ -0,0 +1,329 @@
+package com.weatherapp;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Background garbage collector for the icon directory.
+ * <p>
+ * Keeps the {@link IconPack} under a byte cap and drops icons not used within a maximum age,
+ * least recently used first. Last-access times are tracked in memory at minute resolution
+ * (updated by {@link #touch}, no file system calls) and persisted to a compact binary index
+ * next to the pack, so nothing is ever stat-ed per icon. Each sweep evicts at most
+ * {@value #MAX_EVICTIONS_PER_SWEEP} icons and schedules a follow-up pass if more work is left,
+ * so a large backlog never holds the pack lock for long. Sweeps also remove leftover
+ * {@code .tmp} files from interrupted writes and expire legacy per-URL PNGs.
+ */
+public class DiskCacheManager {
+    public static final long DEFAULT_MAX_BYTES = 32L * 1024 * 1024;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofDays(30);
+    static final int MAX_EVICTIONS_PER_SWEEP = 64;
+    /** Temp files younger than this may still be written to. */
+    private static final long TEMP_GRACE_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    private static final long SWEEP_INTERVAL_MINUTES = 10;
+    private static final int INDEX_MAGIC = 0x49434158; // "ICAX"
+    private static final int MAX_KEY_BYTES = 8192;
+
+    private final IconPack pack;
+    private final Path dir;
+    private final Path indexFile;
+    private volatile long maxBytes;
+    private volatile Duration maxAge;
+    /** Key to last access in minutes since the epoch. */
+    private final Map<String, Integer> access = new ConcurrentHashMap<>();
+    private final AtomicBoolean dirty = new AtomicBoolean();
+    private final AtomicBoolean followUpScheduled = new AtomicBoolean();
+    private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "IconCache-GC");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong tempFilesRemoved = new AtomicLong();
+    private final AtomicLong sweeps = new AtomicLong();
+    private volatile long diskBytes;
+
+    /**
+     * Manage {@code pack} and the other files in {@code dir}; nothing runs until {@link #start}.
+     */
+    public DiskCacheManager(IconPack pack, Path dir, long maxBytes, Duration maxAge) {
+        this.pack = pack;
+        this.dir = dir;
+        this.indexFile = dir.resolve("icons.access");
+        this.maxBytes = Math.max(0, maxBytes);
+        this.maxAge = maxAge;
+        loadIndex();
+    }
+
+    /**
+     * Schedule periodic sweeps, the first one after {@code initialDelay}.
+     */
+    public void start(Duration initialDelay) {
+        try {
+            scheduler.scheduleWithFixedDelay(this::sweepQuietly, initialDelay.toMillis(),
+                    TimeUnit.MINUTES.toMillis(SWEEP_INTERVAL_MINUTES), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ignored) {
+        }
+    }
+
+    /**
+     * Record that {@code key} was just read or written.
+     */
+    public void touch(String key) {
+        Integer now = nowMinutes();
+        Integer old = access.put(key, now);
+        if (!now.equals(old)) dirty.set(true);
+    }
+
+    /**
+     * Called after a write; triggers an early sweep once the pack has outgrown the cap.
+     */
+    public void written(String key) {
+        touch(key);
+        if (pack.getFileBytes() > maxBytes) scheduleFollowUp();
+    }
+
+    public void setMaxBytes(long maxBytes) {
+        this.maxBytes = Math.max(0, maxBytes);
+    }
+
+    public void setMaxAge(Duration maxAge) {
+        this.maxAge = maxAge;
+    }
+
+    private void sweepQuietly() {
+        try {
+            sweep();
+        } catch (Exception ex) {
+            // ignore; the next sweep retries
+        }
+    }
+
+    /**
+     * Run one incremental pass. Returns true if it left work for a follow-up pass.
+     */
+    public synchronized boolean sweep() throws IOException {
+        sweeps.incrementAndGet();
+        long otherBytes = sweepDirectory();
+        int budget = MAX_EVICTIONS_PER_SWEEP;
+
+        // forget keys the pack no longer has; keys never touched count as accessed now
+        List<String> keys = pack.keys();
+        Set<String> live = new HashSet<>(keys);
+        access.keySet().removeIf(k -> !live.contains(k));
+        int now = nowMinutes();
+        for (String k : keys) {
+            if (access.putIfAbsent(k, now) == null) dirty.set(true);
+        }
+
+        // oldest first
+        keys.sort((a, b) -> Integer.compare(access.getOrDefault(a, now), access.getOrDefault(b, now)));
+        int oldest = now - (int) Math.min(Integer.MAX_VALUE, maxAge.toMinutes());
+        long liveBytes = 0;
+        for (String k : keys) liveBytes += pack.recordBytes(k);
+        long cap = Math.max(0, maxBytes - otherBytes);
+        int i = 0;
+        for (; i < keys.size() && budget > 0; i++) {
+            String k = keys.get(i);
+            boolean expired = access.getOrDefault(k, now) < oldest;
+            if (!expired && liveBytes <= cap) break;
+            liveBytes -= pack.recordBytes(k);
+            pack.remove(k);
+            access.remove(k);
+            dirty.set(true);
+            evictions.incrementAndGet();
+            budget--;
+        }
+        boolean more = i < keys.size() && (liveBytes > cap || access.getOrDefault(keys.get(i), now) < oldest);
+
+        // tombstones only shrink the file once compacted
+        if (pack.getFileBytes() + otherBytes > maxBytes && pack.getDeadBytes() > 0) pack.compact();
+        diskBytes = pack.getFileBytes() + otherBytes;
+        saveIndex();
+        if (more) scheduleFollowUp();
+        return more;
+    }
+
+    // delete stale temp files and expired legacy PNGs; returns the bytes of everything else
+    // in the directory except the pack itself
+    private long sweepDirectory() {
+        long bytes = 0;
+        long nowMillis = System.currentTimeMillis();
+        long maxAgeMillis = maxAge.toMillis();
+        List<Path> files = new ArrayList<>();
+        try (var s = Files.list(dir)) {
+            s.forEach(files::add);
+        } catch (Exception ex) {
+            return 0;
+        }
+        for (Path p : files) {
+            if (p.equals(pack.getFile())) continue;
+            try {
+                if (!Files.isRegularFile(p)) continue;
+                String name = p.getFileName().toString();
+                long modified = Files.getLastModifiedTime(p).toMillis();
+                long size = Files.size(p);
+                boolean staleTemp = name.endsWith(".tmp") && nowMillis - modified > TEMP_GRACE_MILLIS;
+                boolean expiredPng = name.endsWith(".png") && nowMillis - modified > maxAgeMillis;
+                if (staleTemp || expiredPng) {
+                    Files.deleteIfExists(p);
+                    if (staleTemp) tempFilesRemoved.incrementAndGet();
+                    else evictions.incrementAndGet();
+                } else {
+                    bytes += size;
+                }
+            } catch (Exception ignored) {
+            }
+        }
+        return bytes;
+    }
+
+    private void scheduleFollowUp() {
+        if (!followUpScheduled.compareAndSet(false, true)) return;
+        try {
+            scheduler.schedule(() -> {
+                followUpScheduled.set(false);
+                sweepQuietly();
+            }, 1, TimeUnit.SECONDS);
+        } catch (RejectedExecutionException ex) {
+            followUpScheduled.set(false);
+        }
+    }
+
+    private void loadIndex() {
+        if (!Files.exists(indexFile)) return;
+        try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(indexFile)))) {
+            if (in.readInt() != INDEX_MAGIC) return;
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                int len = in.readInt();
+                if (len <= 0 || len > MAX_KEY_BYTES) break;
+                byte[] key = in.readNBytes(len);
+                if (key.length != len) break;
+                access.put(new String(key, StandardCharsets.UTF_8), in.readInt());
+            }
+        } catch (Exception ex) {
+            // ignore: a truncated index only costs access history
+        }
+    }
+
+    private void saveIndex() throws IOException {
+        if (!dirty.getAndSet(false)) return;
+        Path tmp = indexFile.resolveSibling(indexFile.getFileName() + ".tmp");
+        Map<String, Integer> snapshot = Map.copyOf(access);
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+            out.writeInt(INDEX_MAGIC);
+            out.writeInt(snapshot.size());
+            for (Map.Entry<String, Integer> e : snapshot.entrySet()) {
+                byte[] key = e.getKey().getBytes(StandardCharsets.UTF_8);
+                out.writeInt(key.length);
+                out.write(key);
+                out.writeInt(e.getValue());
+            }
+        } catch (IOException ex) {
+            dirty.set(true);
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        try {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, indexFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Stop sweeping and persist the access index.
+     */
+    public void shutdown() {
+        scheduler.shutdownNow();
+        try {
+            scheduler.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            try {
+                saveIndex();
+            } catch (Exception ignored) {
+            }
+        }
+    }
+
+    /**
+     * Forget all access times, e.g. after the pack was cleared.
+     */
+    public void clear() {
+        access.clear();
+        dirty.set(true);
+    }
+
+    private static int nowMinutes() {
+        return (int) (System.currentTimeMillis() / 60_000L);
+    }
+
+    /**
+     * Bytes in the icon directory as of the last sweep (pack file plus other files).
+     */
+    public long getDiskBytes() {
+        return diskBytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public Duration getMaxAge() {
+        return maxAge;
+    }
+
+    /**
+     * Icons evicted for size or age, including expired legacy PNGs.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public long getTempFilesRemoved() {
+        return tempFilesRemoved.get();
+    }
+
+    public long getSweepCount() {
+        return sweeps.get();
+    }
+
+    /**
+     * Last access of {@code key} in minutes since the epoch, or -1 if untracked.
+     */
+    int lastAccessMinutes(String key) {
+        Integer m = access.get(key);
+        return m != null ? m : -1;
+    }
+
+    void setLastAccessMinutes(String key, int minutes) {
+        access.put(key, minutes);
+        dirty.set(true);
+    }
+}
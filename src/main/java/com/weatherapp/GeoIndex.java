@@ -0,0 +1,183 @@
+package com.weatherapp;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+import java.util.function.LongSupplier;
+
+/**
+ * Nearest-neighbour index over recently fetched locations.
+ * <p>
+ * Points are bucketed into a fixed lat/lon grid whose cells are about {@code cellKm} on a side
+ * (a geohash-style grid), so a query within that radius only inspects the cells overlapping its
+ * bounding box and measures great-circle distance to the few points found there. Entries whose
+ * observation is older than {@code maxAgeMillis} are ignored and purged lazily; past
+ * {@code maxEntries} the oldest observation is dropped. A point put within {@value #SAME_POINT_KM} km of an existing one replaces it.
+ */
+public class GeoIndex<V> {
+    private static final double EARTH_RADIUS_KM = 6371.0;
+    private static final double KM_PER_DEGREE = Math.PI * EARTH_RADIUS_KM / 180.0;
+    static final double SAME_POINT_KM = 0.05;
+
+    private final double cellDeg;
+    private final int columns;
+    private final long maxAgeMillis;
+    private final int maxEntries;
+    private final LongSupplier clock;
+    private final Map<Long, List<Entry<V>>> cells = new HashMap<>();
+    private int size;
+
+    public GeoIndex(double cellKm, long maxAgeMillis, int maxEntries) {
+        this(cellKm, maxAgeMillis, maxEntries, System::currentTimeMillis);
+    }
+
+    GeoIndex(double cellKm, long maxAgeMillis, int maxEntries, LongSupplier clock) {
+        // a whole number of columns around the globe, so longitudes wrap cleanly at 180°
+        this.columns = (int) Math.ceil(360.0 / Math.max(0.001, cellKm / KM_PER_DEGREE));
+        this.cellDeg = 360.0 / columns;
+        this.maxAgeMillis = maxAgeMillis;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+    }
+
+    /**
+     * Index {@code value} as observed now.
+     */
+    public void put(double lat, double lon, V value) {
+        put(lat, lon, value, clock.getAsLong());
+    }
+
+    /**
+     * Index {@code value} as observed at {@code observedAtMillis}; freshness is measured from
+     * then, not from insertion. Already stale observations are not indexed.
+     */
+    public synchronized void put(double lat, double lon, V value, long observedAtMillis) {
+        long now = clock.getAsLong();
+        if (now - observedAtMillis > maxAgeMillis) return;
+        List<Entry<V>> cell = cells.computeIfAbsent(cellKey(lat, lon), k -> new ArrayList<>(2));
+        for (Iterator<Entry<V>> it = cell.iterator(); it.hasNext(); ) {
+            Entry<V> e = it.next();
+            if (now - e.observedAt > maxAgeMillis || distanceKm(lat, lon, e.lat, e.lon) < SAME_POINT_KM) {
+                it.remove();
+                size--;
+            }
+        }
+        cell.add(new Entry<>(lat, lon, value, observedAtMillis));
+        size++;
+        if (size > maxEntries) evictOldest(now);
+    }
+
+    /**
+     * The freshest-enough value nearest to {@code lat,lon} within {@code radiusKm} that
+     * satisfies {@code filter}, or null.
+     */
+    public synchronized V nearest(double lat, double lon, double radiusKm, Predicate<V> filter) {
+        if (radiusKm <= 0 || size == 0) return null;
+        long now = clock.getAsLong();
+        double dLat = radiusKm / KM_PER_DEGREE;
+        // a degree of longitude shrinks towards the poles
+        double cos = Math.max(0.01, Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat)))));
+        double dLon = Math.min(180.0, dLat / cos);
+        int r0 = row(lat - dLat), r1 = row(lat + dLat);
+        int c0 = col(lon - dLon), c1 = col(lon + dLon);
+        int cols = columns;
+        if (c1 - c0 + 1 >= cols) {
+            c0 = 0;
+            c1 = cols - 1;
+        }
+        Entry<V> best = null;
+        double bestKm = radiusKm;
+        for (int r = r0; r <= r1; r++) {
+            for (int c = c0; c <= c1; c++) {
+                List<Entry<V>> cell = cells.get(key(r, Math.floorMod(c, cols)));
+                if (cell == null) continue;
+                for (Entry<V> e : cell) {
+                    if (now - e.observedAt > maxAgeMillis) continue;
+                    double km = distanceKm(lat, lon, e.lat, e.lon);
+                    if (km <= bestKm && (filter == null || filter.test(e.value))) {
+                        best = e;
+                        bestKm = km;
+                    }
+                }
+            }
+        }
+        return best != null ? best.value : null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    public synchronized void clear() {
+        cells.clear();
+        size = 0;
+    }
+
+    // drop expired entries, then the single oldest one if still over the cap
+    private void evictOldest(long now) {
+        Entry<V> oldest = null;
+        List<Entry<V>> oldestCell = null;
+        for (Iterator<List<Entry<V>>> cit = cells.values().iterator(); cit.hasNext(); ) {
+            List<Entry<V>> cell = cit.next();
+            for (Iterator<Entry<V>> it = cell.iterator(); it.hasNext(); ) {
+                Entry<V> e = it.next();
+                if (now - e.observedAt > maxAgeMillis) {
+                    it.remove();
+                    size--;
+                } else if (oldest == null || e.observedAt < oldest.observedAt) {
+                    oldest = e;
+                    oldestCell = cell;
+                }
+            }
+            if (cell.isEmpty()) cit.remove();
+        }
+        if (size > maxEntries && oldestCell != null) {
+            oldestCell.remove(oldest);
+            size--;
+        }
+    }
+
+    private long cellKey(double lat, double lon) {
+        return key(row(lat), col(lon));
+    }
+
+    private int row(double lat) {
+        return (int) Math.floor((Math.max(-90.0, Math.min(90.0, lat)) + 90.0) / cellDeg);
+    }
+
+    private int col(double lon) {
+        return (int) Math.floor((lon + 180.0) / cellDeg);
+    }
+
+    private long key(int row, int col) {
+        return ((long) row << 32) | (Math.floorMod(col, columns) & 0xffffffffL);
+    }
+
+    /**
+     * Great-circle distance in kilometres (haversine).
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    private static final class Entry<V> {
+        final double lat;
+        final double lon;
+        final V value;
+        final long observedAt;
+
+        Entry(double lat, double lon, V value, long observedAt) {
+            this.lat = lat;
+            this.lon = lon;
+            this.value = value;
+            this.observedAt = observedAt;
+        }
+    }
+}
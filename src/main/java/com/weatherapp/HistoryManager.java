@@ -2,24 +2,75 @@ package com.weatherapp;
 
 import com.google.gson.*;
 
-import java.io.File;
-import java.io.FileReader;
-import java.io.FileWriter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
 
 /**
- * Simple history manager that records recent searches to a JSON file in the project directory.
+ * Simple history manager that records recent searches to a journal file in the project directory.
+ * <p>
+ * The most recent {@value #MAX_ENTRIES} searches live in a fixed-size ring buffer, so adding one
+ * is O(1) and never touches the file system. A background writer runs {@code debounce} after the
+ * first unsaved addition and appends the new records to an append-only journal in one
+ * {@link FileChannel} write. Each record is
+ * {@code [int length][long timestamp][city UTF-8][int CRC32]}, so on load a torn or corrupt tail
+ * is cut off and everything before it is kept. Once the journal holds twice the retention limit
+ * the writer compacts it down to the retained entries (temp file plus rename). A
+ * {@code .json} history from older versions next to the journal is imported on first start.
+ * Call {@link #shutdown()} to flush on exit.
  */
 public class HistoryManager {
-    private static final String DEFAULT_HISTORY_FILE = "weather-search-history.json";
-    private final List<HistoryEntry> history = new ArrayList<>();
+    private static final String DEFAULT_HISTORY_FILE = "weather-search-history.journal";
+    public static final int MAX_ENTRIES = 50;
+    public static final Duration DEFAULT_DEBOUNCE = Duration.ofMillis(500);
+    private static final int MAGIC = 0x57484A31; // "WHJ1"
+    private static final int HEADER_BYTES = 4;
+    private static final int MAX_RECORD_BYTES = 4096;
+    /** Journal records tolerated before compaction. */
+    private static final int COMPACT_THRESHOLD = MAX_ENTRIES * 2;
+
+    // ring buffer: head is the slot of the newest entry
+    private final HistoryEntry[] ring = new HistoryEntry[MAX_ENTRIES];
+    private int head = -1;
+    private int count;
+    /** Entries added since the last append, oldest first. */
+    private final List<HistoryEntry> unsaved = new ArrayList<>();
+    /** Journal must be rewritten from the ring (missing header, imported legacy file). */
+    private boolean rewrite;
+    private boolean importedLegacy;
+    private boolean writeScheduled;
+    private int journalRecords;
+
     private final java.nio.file.Path historyPath;
-    private final Gson gson = new GsonBuilder().setPrettyPrinting().create();
+    private final java.nio.file.Path legacyPath;
+    private final Duration debounce;
+    private final ScheduledExecutorService writer = Executors.newSingleThreadScheduledExecutor(r -> {
+        Thread t = new Thread(r, "HistoryManager-Writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Object writeLock = new Object();
+    private FileChannel channel; // guarded by writeLock
+    private final AtomicLong writes = new AtomicLong();
+    private final AtomicLong compactions = new AtomicLong();
 
     public HistoryManager() {
         this(java.nio.file.Path.of(DEFAULT_HISTORY_FILE));
@@ -30,55 +81,296 @@ public class HistoryManager {
      * Useful for tests to avoid writing into the repository working directory.
      */
     public HistoryManager(java.nio.file.Path filePath) {
+        this(filePath, DEFAULT_DEBOUNCE);
+    }
+
+    HistoryManager(java.nio.file.Path filePath, Duration debounce) {
         this.historyPath = filePath;
+        this.legacyPath = legacyPathFor(filePath);
+        this.debounce = debounce;
         load();
     }
 
+    // weather-search-history.journal -> weather-search-history.json
+    private static java.nio.file.Path legacyPathFor(java.nio.file.Path journal) {
+        String name = journal.getFileName().toString();
+        int dot = name.lastIndexOf('.');
+        return journal.resolveSibling((dot > 0 ? name.substring(0, dot) : name) + ".json");
+    }
+
     public void addEntry(String city, long timestamp) {
-        history.add(0, new HistoryEntry(city, timestamp)); // add to front
-        // keep only last 50
-        if (history.size() > 50) history.remove(history.size() - 1);
-        save();
+        synchronized (this) {
+            HistoryEntry e = new HistoryEntry(city, timestamp);
+            push(e);
+            unsaved.add(e);
+            if (writeScheduled) return;
+            writeScheduled = true;
+        }
+        try {
+            writer.schedule(this::writeQuietly, debounce.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException ex) {
+            // shut down: write synchronously so the entry is not lost
+            writeQuietly();
+        }
     }
 
-    public List<HistoryEntry> getHistory() {
-        return Collections.unmodifiableList(history);
+    // caller holds the lock; overwrites the oldest entry once full
+    private void push(HistoryEntry e) {
+        head = (head + 1) % ring.length;
+        ring[head] = e;
+        if (count < ring.length) count++;
+    }
+
+    /**
+     * Snapshot of the history, newest first.
+     */
+    public synchronized List<HistoryEntry> getHistory() {
+        List<HistoryEntry> out = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) out.add(ring[Math.floorMod(head - i, ring.length)]);
+        return Collections.unmodifiableList(out);
     }
 
     private void load() {
         try {
-            java.io.File f = historyPath.toFile();
-            if (!f.exists()) return;
-            try (java.io.FileReader fr = new java.io.FileReader(f)) {
-                JsonArray arr = JsonParser.parseReader(fr).getAsJsonArray();
-                for (JsonElement e : arr) {
-                    JsonObject o = e.getAsJsonObject();
-                    String city = o.get("city").getAsString();
-                    long ts = o.get("timestamp").getAsLong();
-                    history.add(new HistoryEntry(city, ts));
-                }
+            if (Files.exists(historyPath) && Files.size(historyPath) > 0) {
+                loadJournal();
+            } else if (!legacyPath.equals(historyPath) && Files.exists(legacyPath)) {
+                importLegacy();
             }
         } catch (Exception ex) {
             // ignore load errors
         }
     }
 
-    private void save() {
-        try {
-            java.io.File f = historyPath.toFile();
-            try (java.io.FileWriter fw = new java.io.FileWriter(f)) {
-                JsonArray arr = new JsonArray();
-                for (HistoryEntry he : history) {
-                    JsonObject o = new JsonObject();
-                    o.addProperty("city", he.getCity());
-                    o.addProperty("timestamp", he.getTimestamp());
-                    arr.add(o);
+    // replay valid records oldest first; stop at the first torn or corrupt one
+    private void loadJournal() throws IOException {
+        byte[] bytes = Files.readAllBytes(historyPath);
+        ByteBuffer b = ByteBuffer.wrap(bytes);
+        if (bytes.length < HEADER_BYTES || b.getInt() != MAGIC) {
+            synchronized (this) {
+                rewrite = true;
+            }
+            return;
+        }
+        int valid = HEADER_BYTES;
+        int records = 0;
+        synchronized (this) {
+            while (b.remaining() >= 4) {
+                int len = b.getInt();
+                if (len < 8 || len > MAX_RECORD_BYTES || b.remaining() < len + 4) break;
+                byte[] payload = new byte[len];
+                b.get(payload);
+                int crc = b.getInt();
+                if (crc != crc32(payload)) break;
+                ByteBuffer p = ByteBuffer.wrap(payload);
+                long ts = p.getLong();
+                String city = new String(payload, 8, len - 8, StandardCharsets.UTF_8);
+                push(new HistoryEntry(city, ts));
+                records++;
+                valid = b.position();
+            }
+            journalRecords = records;
+        }
+        if (valid < bytes.length) {
+            // keep everything before the damage and append after it
+            try (FileChannel ch = FileChannel.open(historyPath, StandardOpenOption.WRITE)) {
+                ch.truncate(valid);
+            }
+        }
+    }
+
+    // pre-journal history: a JSON array, newest first
+    private void importLegacy() throws IOException {
+        List<HistoryEntry> loaded = new ArrayList<>();
+        try (java.io.Reader r = Files.newBufferedReader(legacyPath, StandardCharsets.UTF_8)) {
+            JsonArray arr = JsonParser.parseReader(r).getAsJsonArray();
+            for (JsonElement e : arr) {
+                try {
+                    JsonObject o = e.getAsJsonObject();
+                    loaded.add(new HistoryEntry(o.get("city").getAsString(), o.get("timestamp").getAsLong()));
+                } catch (RuntimeException ex) {
+                    // skip malformed entries rather than dropping the whole file
                 }
-                gson.toJson(arr, fw);
             }
-        } catch (Exception ex) {
-            // ignore save errors
         }
+        synchronized (this) {
+            for (int i = Math.min(loaded.size(), ring.length) - 1; i >= 0; i--) push(loaded.get(i));
+            rewrite = !loaded.isEmpty();
+            importedLegacy = rewrite;
+        }
+    }
+
+    private void writeQuietly() {
+        // one writer at a time: appends must not interleave with a compaction
+        synchronized (writeLock) {
+            try {
+                write();
+            } catch (Exception ex) {
+                // ignore save errors
+            }
+        }
+    }
+
+    // caller holds writeLock
+    private void write() throws IOException {
+        List<HistoryEntry> batch;
+        boolean full;
+        synchronized (this) {
+            writeScheduled = false;
+            full = rewrite || journalRecords + unsaved.size() > COMPACT_THRESHOLD;
+            if (!full && unsaved.isEmpty()) return;
+            batch = new ArrayList<>(unsaved);
+            unsaved.clear();
+        }
+        try {
+            if (full) {
+                compact();
+            } else {
+                append(batch);
+            }
+        } catch (IOException | RuntimeException ex) {
+            synchronized (this) {
+                if (full) rewrite = true;
+                unsaved.addAll(0, batch);
+            }
+            throw ex;
+        }
+    }
+
+    private void append(List<HistoryEntry> batch) throws IOException {
+        FileChannel ch = channel();
+        ByteBuffer buf = encode(batch, false);
+        long pos = ch.size();
+        while (buf.hasRemaining()) pos += ch.write(buf, pos);
+        synchronized (this) {
+            journalRecords += batch.size();
+        }
+        writes.incrementAndGet();
+    }
+
+    /**
+     * Rewrite the journal with just the retained entries and swap it in atomically.
+     */
+    private void compact() throws IOException {
+        List<HistoryEntry> retained = new ArrayList<>(getHistory());
+        Collections.reverse(retained); // oldest first
+        java.nio.file.Path tmp = historyPath.resolveSibling(historyPath.getFileName() + ".tmp");
+        try (FileChannel out = FileChannel.open(tmp, StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buf = encode(retained, true);
+            while (buf.hasRemaining()) out.write(buf);
+            out.force(false);
+        } catch (IOException ex) {
+            Files.deleteIfExists(tmp);
+            throw ex;
+        }
+        closeChannel();
+        try {
+            Files.move(tmp, historyPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmp, historyPath, StandardCopyOption.REPLACE_EXISTING);
+        }
+        boolean imported;
+        synchronized (this) {
+            imported = importedLegacy;
+            importedLegacy = false;
+            rewrite = false;
+            journalRecords = retained.size();
+        }
+        if (imported) {
+            // keep the old file around, but never import it again
+            Files.move(legacyPath, legacyPath.resolveSibling(legacyPath.getFileName() + ".bak"),
+                    StandardCopyOption.REPLACE_EXISTING);
+        }
+        writes.incrementAndGet();
+        compactions.incrementAndGet();
+    }
+
+    private static ByteBuffer encode(List<HistoryEntry> entries, boolean withHeader) {
+        List<byte[]> cities = new ArrayList<>(entries.size());
+        int total = withHeader ? HEADER_BYTES : 0;
+        for (HistoryEntry e : entries) {
+            byte[] city = e.getCity().getBytes(StandardCharsets.UTF_8);
+            if (city.length > MAX_RECORD_BYTES - 8) city = java.util.Arrays.copyOf(city, MAX_RECORD_BYTES - 8);
+            cities.add(city);
+            total += 4 + 8 + city.length + 4;
+        }
+        ByteBuffer buf = ByteBuffer.allocate(total);
+        if (withHeader) buf.putInt(MAGIC);
+        for (int i = 0; i < entries.size(); i++) {
+            byte[] city = cities.get(i);
+            int start = buf.position() + 4;
+            buf.putInt(8 + city.length).putLong(entries.get(i).getTimestamp()).put(city);
+            CRC32 crc = new CRC32();
+            crc.update(buf.array(), start, 8 + city.length);
+            buf.putInt((int) crc.getValue());
+        }
+        return buf.flip();
+    }
+
+    private static int crc32(byte[] payload) {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        return (int) crc.getValue();
+    }
+
+    // caller holds writeLock
+    private FileChannel channel() throws IOException {
+        if (channel == null || !channel.isOpen()) {
+            channel = FileChannel.open(historyPath, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            if (channel.size() == 0) {
+                ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).putInt(MAGIC).flip();
+                while (header.hasRemaining()) channel.write(header, 0);
+            }
+        }
+        return channel;
+    }
+
+    private void closeChannel() {
+        if (channel == null) return;
+        try {
+            channel.close();
+        } catch (IOException ignored) {
+        }
+        channel = null;
+    }
+
+    /**
+     * Write any unsaved entries now, on the calling thread.
+     */
+    public void flush() {
+        writeQuietly();
+    }
+
+    /**
+     * Stop the background writer, flush unsaved entries and close the journal.
+     */
+    public void shutdown() {
+        writer.shutdownNow();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (writeLock) {
+            try {
+                write();
+                if (channel != null) channel.force(false);
+            } catch (Exception ignored) {
+            }
+            closeChannel();
+        }
+    }
+
+    /**
+     * Number of completed journal writes; lower than the number of additions when bursts coalesce.
+     */
+    public long getWriteCount() {
+        return writes.get();
+    }
+
+    public long getCompactionCount() {
+        return compactions.get();
     }
 
     public static class HistoryEntry {
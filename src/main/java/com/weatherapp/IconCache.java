@@ -3,139 +3,410 @@ package com.weatherapp;
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
+import java.awt.image.BaseMultiResolutionImage;
 import java.awt.image.BufferedImage;
 import java.io.InputStream;
 import java.net.URI;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
-import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
 import java.nio.file.Path;
-import java.nio.file.StandardCopyOption;
 import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 import java.nio.file.attribute.PosixFilePermissions;
 
 /**
- * Async icon loader with in-memory cache and disk persistence.
- * Icons are normalized to a square size and a lightweight placeholder is
- * immediately delivered while the real icon is fetched.
+ * Async icon loader with in-memory cache and disk persistence in an {@link IconPack}.
+ * WeatherAPI condition icons are served from the bundled {@link ConditionAtlas} without
+ * touching disk or network; only other URLs are downloaded.
+ * <p>
+ * One instance is meant to be shared by the whole UI. Each URL is decoded once into a square
+ * master image (at most {@value #MASTER_MAX_SIZE}px); icons are cached per (URL, size) and
+ * derived from that master, as multi-resolution images when the screen is scaled (HiDPI).
+ * A lightweight placeholder is delivered immediately while the real icon is fetched, and
+ * concurrent requests for one URL share a single pending load, so repeated renders never
+ * issue duplicate downloads.
  */
 public class IconCache {
-    private final Map<String, ImageIcon> cache = new ConcurrentHashMap<>();
-    private final Path iconDir = Path.of(System.getProperty("user.home"), ".weatherapp", "icons");
+    /** Default in-memory budget; roughly 900 icons at 48px. */
+    public static final long DEFAULT_MEMORY_BYTES = 8L * 1024 * 1024;
+    /** Default cap on concurrent icon downloads. */
+    public static final int DEFAULT_LOADER_CONCURRENCY = 4;
+    /** Masters larger than this are downscaled once after decoding. */
+    public static final int MASTER_MAX_SIZE = 256;
+    private static final int MAX_DISK_KEYS = 4096;
+
+    private final IconMemoryCache cache;
+    private final Map<String, Pending> pending = new ConcurrentHashMap<>();
+    private final Path iconDir;
+    /** Disk tier: raw master pixels, or null if the pack could not be opened. */
+    private final IconPack pack;
+    /** Size/age cap for the icon directory; null without a pack. */
+    private final DiskCacheManager diskManager;
     private final HttpClient http = HttpClient.newBuilder().connectTimeout(Duration.ofSeconds(5)).build();
-    private final ExecutorService executor = Executors.newCachedThreadPool(r -> new Thread(r, "IconCache-Loader"));
-    private final int iconSize; // square size (px)
-    private final ImageIcon placeholder;
+    private final IconLoader loader;
+    /** Small pool for disk reads and deletes so the EDT never touches the file system. */
+    private final ExecutorService diskExecutor = Executors.newFixedThreadPool(2, r -> {
+        Thread t = new Thread(r, "IconCache-Disk");
+        t.setDaemon(true);
+        return t;
+    });
+    private final Map<String, String> diskKeys = new ConcurrentHashMap<>();
+    private final int iconSize; // default square size (px)
+    private final Map<Integer, ImageIcon> placeholders = new ConcurrentHashMap<>();
+    /** Sizes requested so far, so {@link #remove} can drop every variant of a URL. */
+    private final Set<Integer> sizes = ConcurrentHashMap.newKeySet();
+    private volatile double[] scaleFactors = detectScaleFactors();
+
+    private final AtomicLong networkFetches = new AtomicLong();
+    private final AtomicLong diskLoads = new AtomicLong();
+    private final AtomicLong atlasHits = new AtomicLong();
+    private final AtomicLong joinedLoads = new AtomicLong();
+    private final AtomicLong variantBuilds = new AtomicLong();
+    private final AtomicLong edtCalls = new AtomicLong();
+    private final AtomicLong edtNanos = new AtomicLong();
+    private final AtomicLong edtMaxNanos = new AtomicLong();
 
     /**
-     * Default constructor uses 48x48 icons.
+     * Default constructor uses 48x48 icons by default.
      */
     public IconCache() {
         this(48);
     }
 
     /**
-     * Create an IconCache that normalizes icons to a square of size {@code iconSize}px.
+     * Create an IconCache whose size-less methods return {@code iconSize}px squares.
      */
     public IconCache(int iconSize) {
+        this(iconSize, DEFAULT_MEMORY_BYTES);
+    }
+
+    /**
+     * Create an IconCache whose in-memory tier holds at most {@code maxMemoryBytes} of decoded
+     * pixels; icons evicted beyond that stay softly reachable until the GC reclaims them.
+     */
+    public IconCache(int iconSize, long maxMemoryBytes) {
+        this(iconSize, maxMemoryBytes, new IconLoader(DEFAULT_LOADER_CONCURRENCY, false));
+    }
+
+    /**
+     * Create an IconCache that downloads through {@code loader}; the cache owns it and shuts it
+     * down in {@link #shutdown()}.
+     */
+    public IconCache(int iconSize, long maxMemoryBytes, IconLoader loader) {
+        this(iconSize, maxMemoryBytes, Path.of(System.getProperty("user.home"), ".weatherapp", "icons"), loader);
+    }
+
+    /**
+     * Constructor with an explicit disk cache directory; used by tests.
+     */
+    IconCache(int iconSize, long maxMemoryBytes, Path iconDir) {
+        this(iconSize, maxMemoryBytes, iconDir, new IconLoader(DEFAULT_LOADER_CONCURRENCY, false));
+    }
+
+    IconCache(int iconSize, long maxMemoryBytes, Path iconDir, IconLoader loader) {
+        this.iconDir = iconDir;
+        this.loader = loader;
         this.iconSize = Math.max(16, iconSize);
-        this.placeholder = new ImageIcon(makePlaceholderImage(this.iconSize));
+        this.cache = new IconMemoryCache(maxMemoryBytes, true);
         try {
             Files.createDirectories(iconDir);
         } catch (Exception ex) {
             // ignore
         }
+        IconPack p = null;
+        try {
+            p = new IconPack(iconDir.resolve("icons.pack"));
+            // try to restrict permissions on POSIX
+            try {
+                if (Files.getFileStore(iconDir).supportsFileAttributeView("posix")) {
+                    Files.setPosixFilePermissions(p.getFile(), PosixFilePermissions.fromString("rw-------"));
+                }
+            } catch (Exception ignored) {
+            }
+        } catch (Exception ex) {
+            // no disk tier; icons are still cached in memory
+        }
+        this.pack = p;
+        this.diskManager = p != null
+                ? new DiskCacheManager(p, iconDir, DiskCacheManager.DEFAULT_MAX_BYTES, DiskCacheManager.DEFAULT_MAX_AGE)
+                : null;
+        // first sweep once startup I/O has settled
+        if (diskManager != null) diskManager.start(Duration.ofSeconds(30));
+        // decode the bundled condition atlas early, off the calling thread
+        try {
+            diskExecutor.execute(ConditionAtlas::shared);
+        } catch (RejectedExecutionException ignored) {
+        }
     }
 
     public void loadIcon(String url, Consumer<ImageIcon> cb) {
-        if (url == null || url.isEmpty()) {
-            SwingUtilities.invokeLater(() -> cb.accept(null));
-            return;
+        loadIcon(url, iconSize, cb);
+    }
+
+    /**
+     * Deliver the {@code size}px icon for {@code url} to {@code cb} on the EDT: a placeholder
+     * first unless the icon is already in memory, then the icon (or null if it failed).
+     */
+    public void loadIcon(String url, int size, Consumer<ImageIcon> cb) {
+        long start = System.nanoTime();
+        try {
+            if (url == null || url.isEmpty()) {
+                SwingUtilities.invokeLater(() -> cb.accept(null));
+                return;
+            }
+            ImageIcon hit = cache.get(variantKey(url, size));
+            if (hit != null) {
+                SwingUtilities.invokeLater(() -> cb.accept(hit));
+                return;
+            }
+
+            // immediately show a lightweight placeholder so UI can layout
+            ImageIcon ph = getPlaceholder(size);
+            SwingUtilities.invokeLater(() -> cb.accept(ph));
+            loadAsync(url, size, IconLoader.Priority.VISIBLE)
+                    .whenComplete((icon, ex) -> SwingUtilities.invokeLater(() -> cb.accept(icon)));
+        } finally {
+            recordCallerTime(start);
         }
-        if (cache.containsKey(url)) {
-            SwingUtilities.invokeLater(() -> cb.accept(cache.get(url)));
-            return;
+    }
+
+    /**
+     * Return a future for the default-size icon at {@code url}, completing with null if it
+     * cannot be loaded. Concurrent calls for the same URL share one disk read / download; the
+     * returned future is a per-caller copy, so completing or cancelling it does not affect other
+     * callers. Only memory is consulted on the calling thread; disk and network run on background
+     * threads.
+     */
+    public CompletableFuture<ImageIcon> load(String url) {
+        return load(url, iconSize, IconLoader.Priority.VISIBLE);
+    }
+
+    public CompletableFuture<ImageIcon> load(String url, IconLoader.Priority priority) {
+        return load(url, iconSize, priority);
+    }
+
+    /**
+     * Like {@link #load(String)} for a {@code size}px square, queueing any download at
+     * {@code priority}. A visible request joining a pending prefetch promotes its queued download.
+     */
+    public CompletableFuture<ImageIcon> load(String url, int size, IconLoader.Priority priority) {
+        long start = System.nanoTime();
+        try {
+            return loadAsync(url, size, priority);
+        } finally {
+            recordCallerTime(start);
         }
+    }
 
-        // immediately show a lightweight placeholder so UI can layout
-        SwingUtilities.invokeLater(() -> cb.accept(placeholder));
+    private CompletableFuture<ImageIcon> loadAsync(String url, int size, IconLoader.Priority priority) {
+        if (url == null || url.isEmpty()) return CompletableFuture.completedFuture(null);
+        ImageIcon hit = cache.get(variantKey(url, size));
+        if (hit != null) return CompletableFuture.completedFuture(hit);
+        CompletableFuture<BufferedImage> master = loadMaster(url, priority);
+        // scaling a master is cheap; do it inline if the master is already at hand
+        return master.thenApply(m -> m != null ? variant(url, size, m) : null);
+    }
 
-        // check disk cache
+    private CompletableFuture<BufferedImage> loadMaster(String url, IconLoader.Priority priority) {
+        BufferedImage m = cachedMaster(url);
+        if (m != null) return CompletableFuture.completedFuture(m);
+        // bundled glyph for a WeatherAPI condition icon; only once the atlas is decoded, to keep
+        // the calling thread free of I/O
+        BufferedImage glyph = fromAtlas(ConditionAtlas.ifLoaded(), url);
+        if (glyph != null) return CompletableFuture.completedFuture(glyph);
+
+        Pending p = new Pending(priority);
+        CompletableFuture<BufferedImage> mine = p.future;
+        Pending existing = pending.putIfAbsent(url, p);
+        if (existing != null) {
+            joinedLoads.incrementAndGet();
+            existing.join(priority);
+            return existing.future.copy();
+        }
+        mine.whenComplete((img, ex) -> pending.remove(url, p));
+        // a load may have finished between the memory check and claiming the slot
+        m = cachedMaster(url);
+        if (m != null) {
+            mine.complete(m);
+            return mine.copy();
+        }
+
+        // check the atlas and disk on the I/O executor, then fall back to a download
         try {
-            String key = sha256(url);
-            Path p = iconDir.resolve(key + ".png");
-            if (Files.exists(p)) {
-                BufferedImage img = ImageIO.read(p.toFile());
-                if (img != null) {
-                    // ensure normalized size when loading from disk
-                    BufferedImage scaled = scaleToSquare(img, iconSize);
-                    ImageIcon icon = new ImageIcon(scaled);
-                    cache.put(url, icon);
-                    SwingUtilities.invokeLater(() -> cb.accept(icon));
+            diskExecutor.execute(() -> {
+                BufferedImage fromAtlas = fromAtlas(ConditionAtlas.shared(), url);
+                if (fromAtlas != null) {
+                    mine.complete(fromAtlas);
                     return;
                 }
+                BufferedImage fromDisk = readFromDisk(url);
+                if (fromDisk != null) {
+                    putMaster(url, fromDisk);
+                    mine.complete(fromDisk);
+                } else {
+                    submitDownload(url, p);
+                }
+            });
+        } catch (RejectedExecutionException ex) {
+            mine.complete(null);
+        }
+        return mine.copy();
+    }
+
+    private BufferedImage cachedMaster(String url) {
+        ImageIcon m = cache.get(masterKey(url));
+        return m != null ? (BufferedImage) m.getImage() : null;
+    }
+
+    private void putMaster(String url, BufferedImage master) {
+        cache.put(masterKey(url), new ImageIcon(master));
+    }
+
+    /**
+     * Build and cache the {@code size}px icon for {@code url}: a plain image at scale 1, or a
+     * multi-resolution image with one variant per screen scale factor.
+     */
+    private ImageIcon variant(String url, int size, BufferedImage master) {
+        String key = variantKey(url, size);
+        ImageIcon icon;
+        double[] scales = scaleFactors;
+        if (scales.length == 1 && scales[0] == 1.0) {
+            icon = new ImageIcon(scaleToSquare(master, size));
+        } else {
+            List<Image> variants = new ArrayList<>();
+            Set<Integer> seen = new HashSet<>();
+            variants.add(scaleToSquare(master, size));
+            seen.add(size);
+            for (double s : scales) {
+                int px = (int) Math.round(size * s);
+                if (seen.add(px)) variants.add(scaleToSquare(master, px));
             }
+            icon = new ImageIcon(new BaseMultiResolutionImage(variants.toArray(new Image[0])));
+        }
+        sizes.add(size);
+        cache.put(key, icon);
+        variantBuilds.incrementAndGet();
+        return icon;
+    }
+
+    private static String masterKey(String url) {
+        return "master:" + url;
+    }
+
+    private static String variantKey(String url, int size) {
+        return size + ":" + url;
+    }
+
+    /**
+     * Screen scale factors to build variants for: 1 plus the default screen's scale on HiDPI.
+     */
+    private static double[] detectScaleFactors() {
+        try {
+            if (GraphicsEnvironment.isHeadless()) return new double[]{1.0};
+            double s = GraphicsEnvironment.getLocalGraphicsEnvironment().getDefaultScreenDevice()
+                    .getDefaultConfiguration().getDefaultTransform().getScaleX();
+            return s > 1.0 ? new double[]{1.0, s} : new double[]{1.0};
         } catch (Exception ex) {
-            // ignore disk cache errors
+            return new double[]{1.0};
         }
+    }
 
-        // download off the EDT using a shared executor and HttpClient
-        executor.submit(() -> {
-            try {
-                HttpRequest req = HttpRequest.newBuilder()
-                        .uri(URI.create(url))
-                        .timeout(Duration.ofSeconds(8))
-                        .GET()
-                        .build();
-
-                HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-                if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                    try (InputStream in = resp.body()) {
-                        BufferedImage img = ImageIO.read(in);
-                        if (img != null) {
-                            BufferedImage scaled = scaleToSquare(img, iconSize);
-                            ImageIcon icon = new ImageIcon(scaled);
-                            cache.put(url, icon);
-                            // persist to disk atomically
-                            try {
-                                String key = sha256(url);
-                                Path p = iconDir.resolve(key + ".png");
-                                Path tmp = iconDir.resolve(key + ".png.tmp");
-                                ImageIO.write(scaled, "png", tmp.toFile());
-                                try {
-                                    Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                                } catch (AtomicMoveNotSupportedException amnse) {
-                                    Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING);
-                                }
-                                // try to restrict permissions on POSIX
-                                try {
-                                    if (Files.getFileStore(iconDir).supportsFileAttributeView("posix")) {
-                                        Files.setPosixFilePermissions(p, PosixFilePermissions.fromString("rw-------"));
-                                    }
-                                } catch (Exception ignored) {
-                                }
-                            } catch (Exception ex) {
-                                // ignore disk write issues
-                            }
-                            SwingUtilities.invokeLater(() -> cb.accept(icon));
-                            return;
-                        }
-                    }
+    /**
+     * Override the detected screen scale factors (e.g. {@code 1.0, 2.0}); applies to icons built
+     * afterwards.
+     */
+    public void setScaleFactors(double... factors) {
+        double[] f = factors == null || factors.length == 0 ? new double[]{1.0} : factors.clone();
+        Arrays.sort(f);
+        scaleFactors = f;
+    }
+
+    // download off the EDT through the bounded loader and a shared HttpClient
+    private void submitDownload(String url, Pending p) {
+        if (p.future.isDone()) return; // cancelled while the disk was checked
+        try {
+            p.queued(loader.submit(p.priority, () -> {
+                BufferedImage master = null;
+                try {
+                    master = download(url);
+                } finally {
+                    if (master != null) putMaster(url, master);
+                    p.future.complete(master);
                 }
-            } catch (Exception ex) {
-                // ignore network/parse errors
+            }));
+        } catch (RejectedExecutionException ex) {
+            p.future.complete(null);
+        }
+    }
+
+    /**
+     * Give up one caller's interest in the pending load for {@code url}, e.g. because the cell that
+     * asked for it scrolled out of view. Once every caller that joined the load has given up, a
+     * download still waiting in the loader queue is dropped and its futures complete with null.
+     * Returns true if a load was pending for {@code url}; call this at most once per load request.
+     */
+    public boolean cancelQueued(String url) {
+        Pending p = url != null ? pending.get(url) : null;
+        if (p == null) return false;
+        if (p.release()) p.future.complete(null);
+        return true;
+    }
+
+    /**
+     * Stop the loader and the disk executor and close the icon pack. Loads requested afterwards
+     * complete with null unless the icon is already in memory.
+     */
+    public void shutdown() {
+        try {
+            loader.shutdown(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        diskExecutor.shutdown();
+        try {
+            diskExecutor.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+        if (diskManager != null) diskManager.shutdown();
+        if (pack != null) {
+            try {
+                pack.close();
+            } catch (Exception ignored) {
             }
-            SwingUtilities.invokeLater(() -> cb.accept(null));
-        });
+        }
+        // anything still pending was dropped from the loader queue
+        pending.values().forEach(p -> p.future.complete(null));
+    }
+
+    /**
+     * Garbage collector for the icon directory (byte cap, max age, on-disk size and eviction
+     * counts), or null if the disk tier is unavailable.
+     */
+    public DiskCacheManager getDiskCacheManager() {
+        return diskManager;
+    }
+
+    public IconLoader getLoader() {
+        return loader;
     }
 
     /**
@@ -144,43 +415,110 @@ public class IconCache {
      */
     public void prefetch(String url) {
         if (url == null || url.isEmpty()) return;
-        if (cache.containsKey(url)) return;
+        if (cache.contains(masterKey(url))) return;
+        loadMaster(url, IconLoader.Priority.PREFETCH);
+    }
 
-        executor.submit(() -> {
-            try {
-                String key = sha256(url);
-                Path p = iconDir.resolve(key + ".png");
-                // try disk first
-                if (Files.exists(p)) {
-                    BufferedImage img = ImageIO.read(p.toFile());
-                    if (img != null) {
-                        cache.put(url, new ImageIcon(img));
-                        return;
-                    }
-                }
+    /**
+     * Disk file name stem for {@code url}; hashed once per URL and remembered.
+     */
+    private String diskKey(String url) {
+        String key = diskKeys.get(url);
+        if (key != null) return key;
+        if (diskKeys.size() >= MAX_DISK_KEYS) diskKeys.clear();
+        key = sha256(url);
+        diskKeys.put(url, key);
+        return key;
+    }
 
-                HttpRequest req = HttpRequest.newBuilder().uri(URI.create(url)).timeout(Duration.ofSeconds(8)).GET().build();
-                HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
-                if (resp.statusCode() >= 200 && resp.statusCode() < 300) {
-                    try (InputStream in = resp.body()) {
-                        BufferedImage img = ImageIO.read(in);
-                        if (img != null) {
-                            BufferedImage scaled = scaleToSquare(img, iconSize);
-                            cache.put(url, new ImageIcon(scaled));
-                            try {
-                                Path tmp = iconDir.resolve(key + ".png.tmp");
-                                ImageIO.write(scaled, "png", tmp.toFile());
-                                try {
-                                    Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
-                                } catch (AtomicMoveNotSupportedException amnse) {
-                                    Files.move(tmp, p, StandardCopyOption.REPLACE_EXISTING);
-                                }
-                            } catch (Exception ignored) {}
-                        }
+    private void recordCallerTime(long startNanos) {
+        if (!SwingUtilities.isEventDispatchThread()) return;
+        long elapsed = System.nanoTime() - startNanos;
+        edtCalls.incrementAndGet();
+        edtNanos.addAndGet(elapsed);
+        edtMaxNanos.accumulateAndGet(elapsed, Math::max);
+    }
+
+    private BufferedImage fromAtlas(ConditionAtlas atlas, String url) {
+        if (atlas == null) return null;
+        BufferedImage img = atlas.slice(url);
+        if (img == null) return null;
+        putMaster(url, img);
+        atlasHits.incrementAndGet();
+        return img;
+    }
+
+    /**
+     * Square master for a decoded image, downscaled to at most {@link #MASTER_MAX_SIZE}.
+     */
+    private static BufferedImage toMaster(BufferedImage img) {
+        int side = Math.min(MASTER_MAX_SIZE, Math.max(img.getWidth(), img.getHeight()));
+        return scaleToSquare(img, side);
+    }
+
+    private BufferedImage readFromDisk(String url) {
+        try {
+            BufferedImage packed = pack != null ? pack.get(url) : null;
+            if (packed != null) {
+                diskLoads.incrementAndGet();
+                if (diskManager != null) diskManager.touch(url);
+                return packed;
+            }
+            // per-URL PNG written by older versions; move it into the pack on first use
+            Path p = iconDir.resolve(diskKey(url) + ".png");
+            if (Files.exists(p)) {
+                BufferedImage img = ImageIO.read(p.toFile());
+                if (img != null) {
+                    diskLoads.incrementAndGet();
+                    BufferedImage master = toMaster(img);
+                    if (pack != null) {
+                        writeToDisk(url, master);
+                        Files.deleteIfExists(p);
                     }
+                    return master;
                 }
-            } catch (Exception ignored) {}
-        });
+            }
+        } catch (Exception ex) {
+            // ignore disk cache errors
+        }
+        return null;
+    }
+
+    private BufferedImage download(String url) {
+        try {
+            HttpRequest req = HttpRequest.newBuilder()
+                    .uri(URI.create(url))
+                    .timeout(Duration.ofSeconds(8))
+                    .GET()
+                    .build();
+
+            networkFetches.incrementAndGet();
+            HttpResponse<InputStream> resp = http.send(req, HttpResponse.BodyHandlers.ofInputStream());
+            try (InputStream in = resp.body()) {
+                if (resp.statusCode() < 200 || resp.statusCode() >= 300) return null;
+                BufferedImage img = ImageIO.read(in);
+                if (img == null) return null;
+                BufferedImage master = toMaster(img);
+                writeToDisk(url, master);
+                return master;
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        } catch (Exception ex) {
+            // ignore network/parse errors
+        }
+        return null;
+    }
+
+    // append the master's raw pixels to the pack
+    private void writeToDisk(String url, BufferedImage master) {
+        if (pack == null) return;
+        try {
+            pack.put(url, master);
+            if (diskManager != null) diskManager.written(url);
+        } catch (Exception ex) {
+            // ignore disk write issues
+        }
     }
 
     private static BufferedImage scaleToSquare(BufferedImage src, int size) {
@@ -228,22 +566,118 @@ public class IconCache {
     }
 
     /**
-     * Return a cached ImageIcon if present in memory, otherwise null.
+     * Return the cached default-size ImageIcon if present in memory, otherwise null.
      */
     public ImageIcon getCached(String url) {
-        return cache.get(url);
+        return getCached(url, iconSize);
+    }
+
+    /**
+     * Return the cached {@code size}px icon, deriving it from a cached master if needed;
+     * null if neither is in memory.
+     */
+    public ImageIcon getCached(String url, int size) {
+        long start = System.nanoTime();
+        try {
+            if (url == null) return null;
+            ImageIcon icon = cache.get(variantKey(url, size));
+            if (icon != null) return icon;
+            BufferedImage m = cachedMaster(url);
+            return m != null ? variant(url, size, m) : null;
+        } finally {
+            recordCallerTime(start);
+        }
+    }
+
+    /**
+     * The placeholder shown while a default-size icon is loading.
+     */
+    public ImageIcon getPlaceholder() {
+        return getPlaceholder(iconSize);
+    }
+
+    public ImageIcon getPlaceholder(int size) {
+        return placeholders.computeIfAbsent(Math.max(1, size), sz -> new ImageIcon(makePlaceholderImage(sz)));
+    }
+
+    public int getIconSize() {
+        return iconSize;
+    }
+
+    /**
+     * Number of (URL, size) icons derived from a master image.
+     */
+    public long getVariantBuildCount() {
+        return variantBuilds.get();
+    }
+
+    /**
+     * Number of HTTP downloads issued; equals the number of distinct URLs fetched while in-flight
+     * loads are shared.
+     */
+    public long getNetworkFetchCount() {
+        return networkFetches.get();
+    }
+
+    /**
+     * Number of icons served from the bundled {@link ConditionAtlas}.
+     */
+    public long getAtlasHitCount() {
+        return atlasHits.get();
+    }
+
+    public long getDiskLoadCount() {
+        return diskLoads.get();
+    }
+
+    /**
+     * Number of loads that joined an already pending load for the same URL.
+     */
+    public long getJoinedLoadCount() {
+        return joinedLoads.get();
+    }
+
+    /**
+     * Total time callers on the Event Dispatch Thread spent inside {@link #load}, {@link #loadIcon}
+     * and {@link #getCached}, in nanoseconds.
+     */
+    public long getEdtBlockingNanos() {
+        return edtNanos.get();
+    }
+
+    /**
+     * Longest single EDT call into this cache, in nanoseconds.
+     */
+    public long getMaxEdtBlockingNanos() {
+        return edtMaxNanos.get();
+    }
+
+    public long getEdtCallCount() {
+        return edtCalls.get();
+    }
+
+    /**
+     * In-memory tier, exposing its byte usage and hit/miss/eviction counters.
+     */
+    public IconMemoryCache getMemoryCache() {
+        return cache;
     }
 
     /**
      * Remove an entry from both memory cache and disk cache (best-effort).
      */
     public void remove(String url) {
-        cache.remove(url);
+        cache.remove(masterKey(url));
+        for (int size : sizes) cache.remove(variantKey(url, size));
         try {
-            String key = sha256(url);
-            Path p = iconDir.resolve(key + ".png");
-            Files.deleteIfExists(p);
-        } catch (Exception ignored) {
+            diskExecutor.execute(() -> {
+                try {
+                    if (pack != null) pack.remove(url);
+                    Files.deleteIfExists(iconDir.resolve(diskKey(url) + ".png"));
+                } catch (Exception ignored) {
+                }
+            });
+        } catch (RejectedExecutionException ignored) {
         }
     }
 
@@ -258,10 +692,17 @@ public class IconCache {
      * Try to remove all files from the disk cache. This may be slow.
      */
     public void clearDiskCache() {
+        try {
+            if (pack != null) pack.clear();
+            if (diskManager != null) diskManager.clear();
+        } catch (Exception ignored) {
+        }
         try {
             if (Files.isDirectory(iconDir)) {
                 try (var s = Files.list(iconDir)) {
                     s.forEach(p -> {
+                        // the open pack was emptied above; other files are legacy PNGs or leftovers
+                        if (pack != null && p.equals(pack.getFile())) return;
                         try {
                             Files.deleteIfExists(p);
                         } catch (Exception ignored) {
@@ -273,9 +714,55 @@ public class IconCache {
         }
     }
 
-    private static String sha256(String s) throws Exception {
-        MessageDigest md = MessageDigest.getInstance("SHA-256");
-        byte[] d = md.digest(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
-        return Base64.getUrlEncoder().withoutPadding().encodeToString(d);
+    private static String sha256(String s) {
+        try {
+            MessageDigest md = MessageDigest.getInstance("SHA-256");
+            byte[] d = md.digest(s.getBytes(java.nio.charset.StandardCharsets.UTF_8));
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(d);
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException(ex);
+        }
+    }
+
+    /**
+     * A master load in progress: shared future, the number of callers waiting on it, and the
+     * loader ticket once a download is queued.
+     */
+    private static final class Pending {
+        final CompletableFuture<BufferedImage> future = new CompletableFuture<>();
+        volatile IconLoader.Priority priority;
+        private IconLoader.Ticket ticket;
+        private boolean cancelled;
+        private int waiters = 1;
+
+        Pending(IconLoader.Priority priority) {
+            this.priority = priority;
+        }
+
+        synchronized void join(IconLoader.Priority p) {
+            waiters++;
+            if (p.ordinal() >= priority.ordinal()) return;
+            priority = p;
+            if (ticket != null) ticket.promote(p);
+        }
+
+        synchronized void queued(IconLoader.Ticket t) {
+            ticket = t;
+            if (cancelled) t.cancel();
+        }
+
+        /**
+         * Drop one waiter. Returns true if that was the last one and the download will not run
+         * (still reading disk, or queued and now cancelled).
+         */
+        synchronized boolean release() {
+            if (waiters > 0) waiters--;
+            if (waiters > 0) return false;
+            if (ticket == null) {
+                cancelled = true;
+                return true;
+            }
+            return ticket.cancel();
+        }
     }
 }
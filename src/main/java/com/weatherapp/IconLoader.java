@@ -0,0 +1,225 @@
+package com.weatherapp;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, prioritized executor for icon downloads.
+ * <p>
+ * Jobs wait in a priority queue ({@link Priority#VISIBLE} before {@link Priority#PREFETCH}, FIFO
+ * within a priority) and at most {@code maxConcurrency} of them run at once, each on a
+ * named daemon thread or, in virtual-thread mode, on a virtual thread when the runtime has
+ * them. Queued jobs can be cancelled or promoted through their {@link Ticket}.
+ */
+public class IconLoader {
+    public enum Priority {
+        /** Icon for a cell or label currently on screen. */
+        VISIBLE,
+        /** Cache warming; runs only when no visible work is waiting. */
+        PREFETCH
+    }
+
+    private final int maxConcurrency;
+    private final ExecutorService workers;
+    private final PriorityBlockingQueue<Ticket> queue = new PriorityBlockingQueue<>();
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong sequence = new AtomicLong();
+    private volatile boolean shutdown;
+
+    private final AtomicLong completed = new AtomicLong();
+    private final AtomicLong cancelled = new AtomicLong();
+    private final AtomicLong waitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+
+    public IconLoader(int maxConcurrency, boolean virtualThreads) {
+        this.maxConcurrency = Math.max(1, maxConcurrency);
+        ExecutorService vt = virtualThreads ? virtualThreadExecutor() : null;
+        if (vt != null) {
+            this.workers = vt;
+        } else {
+            AtomicInteger n = new AtomicInteger();
+            this.workers = Executors.newCachedThreadPool(r -> {
+                Thread t = new Thread(r, "IconCache-Loader-" + n.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            });
+        }
+    }
+
+    /**
+     * Virtual-thread-per-task executor on Java 21+, otherwise null.
+     */
+    private static ExecutorService virtualThreadExecutor() {
+        try {
+            return (ExecutorService) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Queue {@code task}; it runs once a slot is free and no higher-priority job is waiting.
+     *
+     * @throws RejectedExecutionException after {@link #shutdown}
+     */
+    public Ticket submit(Priority priority, Runnable task) {
+        if (shutdown) throw new RejectedExecutionException("IconLoader is shut down");
+        Ticket t = new Ticket(priority, sequence.incrementAndGet(), task);
+        queue.add(t);
+        drain();
+        return t;
+    }
+
+    // start workers until the cap is reached or the queue is empty; each worker keeps
+    // pulling jobs so threads are reused while there is a backlog
+    private void drain() {
+        while (!queue.isEmpty()) {
+            int n = active.get();
+            if (n >= maxConcurrency) return;
+            if (!active.compareAndSet(n, n + 1)) continue;
+            try {
+                workers.execute(this::work);
+            } catch (RejectedExecutionException ex) {
+                active.decrementAndGet();
+                return;
+            }
+        }
+    }
+
+    private void work() {
+        try {
+            Ticket t;
+            while ((t = queue.poll()) != null) {
+                if (!t.start()) continue;
+                long waited = System.nanoTime() - t.enqueuedNanos;
+                waitNanos.addAndGet(waited);
+                maxWaitNanos.accumulateAndGet(waited, Math::max);
+                try {
+                    t.task.run();
+                } catch (RuntimeException ex) {
+                    // a failing load must not take the worker down
+                } finally {
+                    completed.incrementAndGet();
+                }
+            }
+        } finally {
+            active.decrementAndGet();
+        }
+        // a job may have been queued after the final poll but before the decrement
+        if (!queue.isEmpty() && !shutdown) drain();
+    }
+
+    /**
+     * Stop accepting work, drop queued jobs and wait up to {@code timeout} for running ones.
+     * Returns true if every running job finished in time.
+     */
+    public boolean shutdown(long timeout, TimeUnit unit) throws InterruptedException {
+        shutdown = true;
+        Ticket t;
+        while ((t = queue.poll()) != null) t.cancel();
+        workers.shutdown();
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    public boolean isShutdown() {
+        return shutdown;
+    }
+
+    /**
+     * Jobs waiting for a worker.
+     */
+    public int getQueueDepth() {
+        return queue.size();
+    }
+
+    public int getActiveCount() {
+        return active.get();
+    }
+
+    public int getMaxConcurrency() {
+        return maxConcurrency;
+    }
+
+    public long getCompletedCount() {
+        return completed.get();
+    }
+
+    public long getCancelledCount() {
+        return cancelled.get();
+    }
+
+    /**
+     * Total time started jobs spent queued, in nanoseconds.
+     */
+    public long getTotalWaitNanos() {
+        return waitNanos.get();
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos.get();
+    }
+
+    /**
+     * Handle to a submitted job.
+     */
+    public final class Ticket implements Comparable<Ticket> {
+        private static final int QUEUED = 0, RUNNING = 1, CANCELLED = 2;
+
+        private volatile Priority priority;
+        private final long seq;
+        private final long enqueuedNanos = System.nanoTime();
+        private final Runnable task;
+        private final AtomicInteger state = new AtomicInteger(QUEUED);
+
+        private Ticket(Priority priority, long seq, Runnable task) {
+            this.priority = priority;
+            this.seq = seq;
+            this.task = task;
+        }
+
+        private boolean start() {
+            return state.compareAndSet(QUEUED, RUNNING);
+        }
+
+        /**
+         * Cancel the job if it has not started yet. Returns true if it will never run.
+         */
+        public boolean cancel() {
+            if (!state.compareAndSet(QUEUED, CANCELLED)) return state.get() == CANCELLED;
+            queue.remove(this);
+            cancelled.incrementAndGet();
+            return true;
+        }
+
+        /**
+         * Move a still-queued job up to {@code p}; no-op if it already has that priority or better.
+         */
+        public void promote(Priority p) {
+            if (p.ordinal() >= priority.ordinal() || state.get() != QUEUED) return;
+            // re-insert so the queue re-sorts it
+            if (queue.remove(this)) {
+                priority = p;
+                queue.add(this);
+            }
+        }
+
+        public Priority getPriority() {
+            return priority;
+        }
+
+        public boolean isQueued() {
+            return state.get() == QUEUED;
+        }
+
+        @Override
+        public int compareTo(Ticket o) {
+            int c = Integer.compare(priority.ordinal(), o.priority.ordinal());
+            return c != 0 ? c : Long.compare(seq, o.seq);
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.weatherapp;
+
+import javax.swing.ImageIcon;
+import java.awt.Image;
+import java.awt.image.MultiResolutionImage;
+import java.lang.ref.SoftReference;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * In-memory icon tier bounded by decoded pixel size rather than entry count.
+ * <p>
+ * Each icon is weighed as {@code width * height * 4} bytes (one ARGB int per pixel), summed over
+ * the variants of a multi-resolution image. Icons are held strongly in LRU order until
+ * {@code maxBytes} is exceeded; the least recently used ones are then evicted. With {@code softFallback} enabled, evicted icons are demoted to soft
+ * references instead of dropped, so they can still be served until the GC needs the memory.
+ */
+public class IconMemoryCache {
+    /** Upper bound on demoted keys, so the soft tier cannot grow without limit either. */
+    private static final int MAX_SOFT_ENTRIES = 512;
+
+    private final long maxBytes;
+    private final boolean softFallback;
+    private final LinkedHashMap<String, ImageIcon> strong = new LinkedHashMap<>(16, 0.75f, true);
+    private final LinkedHashMap<String, SoftReference<ImageIcon>> soft = new LinkedHashMap<>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, SoftReference<ImageIcon>> eldest) {
+            return size() > MAX_SOFT_ENTRIES;
+        }
+    };
+    private long bytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong softHits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public IconMemoryCache(long maxBytes, boolean softFallback) {
+        this.maxBytes = Math.max(0, maxBytes);
+        this.softFallback = softFallback;
+    }
+
+    /**
+     * Approximate decoded size of {@code icon} in bytes.
+     */
+    public static long weigh(ImageIcon icon) {
+        if (icon == null) return 0;
+        if (icon.getImage() instanceof MultiResolutionImage) {
+            long total = 0;
+            for (Image v : ((MultiResolutionImage) icon.getImage()).getResolutionVariants()) {
+                total += (long) Math.max(0, v.getWidth(null)) * Math.max(0, v.getHeight(null)) * 4L;
+            }
+            return total;
+        }
+        return (long) Math.max(0, icon.getIconWidth()) * Math.max(0, icon.getIconHeight()) * 4L;
+    }
+
+    public synchronized ImageIcon get(String key) {
+        ImageIcon icon = strong.get(key);
+        if (icon != null) {
+            hits.incrementAndGet();
+            return icon;
+        }
+        SoftReference<ImageIcon> ref = soft.remove(key);
+        icon = ref != null ? ref.get() : null;
+        if (icon != null) {
+            // promote back into the strong tier
+            softHits.incrementAndGet();
+            insert(key, icon);
+            return icon;
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    public synchronized boolean contains(String key) {
+        if (strong.containsKey(key)) return true;
+        SoftReference<ImageIcon> ref = soft.get(key);
+        return ref != null && ref.get() != null;
+    }
+
+    public synchronized void put(String key, ImageIcon icon) {
+        if (icon == null) return;
+        soft.remove(key);
+        insert(key, icon);
+    }
+
+    public synchronized void remove(String key) {
+        ImageIcon old = strong.remove(key);
+        if (old != null) bytes -= weigh(old);
+        soft.remove(key);
+    }
+
+    public synchronized void clear() {
+        strong.clear();
+        soft.clear();
+        bytes = 0;
+    }
+
+    private void insert(String key, ImageIcon icon) {
+        ImageIcon old = strong.put(key, icon);
+        if (old != null) bytes -= weigh(old);
+        bytes += weigh(icon);
+        Iterator<Map.Entry<String, ImageIcon>> it = strong.entrySet().iterator();
+        // keep the entry just inserted even if it alone exceeds the budget
+        while (bytes > maxBytes && strong.size() > 1 && it.hasNext()) {
+            Map.Entry<String, ImageIcon> eldest = it.next();
+            it.remove();
+            bytes -= weigh(eldest.getValue());
+            evictions.incrementAndGet();
+            if (softFallback) soft.put(eldest.getKey(), new SoftReference<>(eldest.getValue()));
+        }
+    }
+
+    /**
+     * Bytes currently held strongly; soft-referenced icons are not counted.
+     */
+    public synchronized long getWeightBytes() {
+        return bytes;
+    }
+
+    public long getMaxBytes() {
+        return maxBytes;
+    }
+
+    public synchronized int size() {
+        return strong.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * Hits served from the soft-reference tier after eviction from the strong tier.
+     */
+    public long getSoftHitCount() {
+        return softHits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+}
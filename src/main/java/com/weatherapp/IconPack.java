@@ -0,0 +1,314 @@
+package com.weatherapp;
+
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Single-file store of already-scaled icons as raw ARGB pixels.
+ * <p>
+ * The file is an 8-byte header followed by append-only records
+ * {@code [int keyLength][key UTF-8][int width][int height][width*height ARGB ints]} in
+ * little-endian order; a record with a 0x0 size is a tombstone. The in-memory index (key to
+ * pixel offset) is rebuilt at open by walking the record headers, and a torn record at the tail
+ * left by an interrupted write is truncated away. Reads go through a {@link MappedByteBuffer}
+ * and copy the pixels straight into the {@link BufferedImage} raster, so no decoding is
+ * involved. Superseded records are reclaimed by moving the live ones, in place, to the start of
+ * the file once they make up less than half of it. A mapped file cannot be replaced or shrunk on
+ * every platform, so the live records end in a zero key length marker and the tail is truncated
+ * only where the platform allows it.
+ */
+public class IconPack implements Closeable {
+    private static final int MAGIC = 0x4B504957; // "WIPK" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_KEY_BYTES = 8192;
+    private static final int MAX_DIMENSION = 1024;
+    /** Dead space tolerated before compaction is considered. */
+    private static final long COMPACT_MIN_DEAD_BYTES = 256 * 1024;
+
+    /** Packs open in this process; a second writer on the same file would corrupt it. */
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final FileChannel channel;
+    private final Map<String, Slot> index = new HashMap<>();
+    private MappedByteBuffer map;
+    private long size;
+    private long deadBytes;
+    private long compactions;
+
+    /**
+     * Open or create the pack at {@code file}.
+     *
+     * @throws IOException if the file cannot be opened or is already open in this process
+     */
+    public IconPack(Path file) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        if (!OPEN.add(this.file)) throw new IOException("Icon pack already open: " + this.file);
+        try {
+            if (this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+            this.channel = open(this.file);
+            try {
+                load();
+            } catch (IOException ex) {
+                channel.close();
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            OPEN.remove(this.file);
+            throw ex;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES || !headerMatches()) {
+            // new, foreign or older-format file: start empty
+            resetToHeader();
+            return;
+        }
+        MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        m.order(ByteOrder.LITTLE_ENDIAN);
+        long pos = HEADER_BYTES;
+        while (pos + 4 <= fileSize) {
+            int keyLen = m.getInt((int) pos);
+            if (keyLen <= 0 || keyLen > MAX_KEY_BYTES || pos + 4 + keyLen + 8 > fileSize) break;
+            byte[] keyBytes = new byte[keyLen];
+            m.get((int) pos + 4, keyBytes);
+            int w = m.getInt((int) pos + 4 + keyLen);
+            int h = m.getInt((int) pos + 8 + keyLen);
+            if (w < 0 || h < 0 || w > MAX_DIMENSION || h > MAX_DIMENSION) break;
+            long pixelOffset = pos + 12 + keyLen;
+            long end = pixelOffset + (long) w * h * 4;
+            if (end > fileSize) break;
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            int recordBytes = (int) (end - pos);
+            Slot old = index.remove(key);
+            if (old != null) deadBytes += old.recordBytes;
+            if (w == 0 || h == 0) deadBytes += recordBytes;
+            else index.put(key, new Slot(pixelOffset, w, h, recordBytes));
+            pos = end;
+        }
+        trimTail(pos); // end marker, or a torn tail from an interrupted append
+        size = pos;
+        map = null;
+    }
+
+    // drop everything from end on; where a mapped file cannot shrink, fence it off with an end marker
+    private void trimTail(long end) throws IOException {
+        if (channel.size() <= end) return;
+        try {
+            channel.truncate(end);
+        } catch (IOException ex) {
+            writeFully(channel, ByteBuffer.allocate(4), end);
+        }
+    }
+
+    private boolean headerMatches() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(b, 0);
+        b.flip();
+        return b.remaining() == HEADER_BYTES && b.getInt() == MAGIC && b.getInt() == VERSION;
+    }
+
+    private void resetToHeader() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).flip();
+        writeFully(channel, b, 0);
+        trimTail(HEADER_BYTES);
+        index.clear();
+        size = HEADER_BYTES;
+        deadBytes = 0;
+        map = null;
+    }
+
+    /**
+     * Return a new ARGB image for {@code key}, or null when the pack has no such icon.
+     */
+    public synchronized BufferedImage get(String key) throws IOException {
+        Slot s = index.get(key);
+        if (s == null) return null;
+        long end = s.offset + (long) s.width * s.height * 4;
+        if (map == null || map.capacity() < end) {
+            map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            map.order(ByteOrder.LITTLE_ENDIAN);
+        }
+        BufferedImage img = new BufferedImage(s.width, s.height, BufferedImage.TYPE_INT_ARGB);
+        int[] dst = ((DataBufferInt) img.getRaster().getDataBuffer()).getData();
+        ByteBuffer src = map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        src.position((int) s.offset).limit((int) end);
+        src.asIntBuffer().get(dst);
+        return img;
+    }
+
+    public synchronized boolean contains(String key) {
+        return index.containsKey(key);
+    }
+
+    /**
+     * Append {@code img} under {@code key}, superseding any earlier record for it.
+     */
+    public synchronized void put(String key, BufferedImage img) throws IOException {
+        int w = img.getWidth();
+        int h = img.getHeight();
+        if (w > MAX_DIMENSION || h > MAX_DIMENSION) throw new IOException("Icon too large: " + w + "x" + h);
+        int[] argb = img.getRGB(0, 0, w, h, null, 0, w);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length > MAX_KEY_BYTES) throw new IOException("Key too long");
+        int recordBytes = 12 + keyBytes.length + argb.length * 4;
+        // followed by an end marker, since stale records may lie past the end after a compaction
+        ByteBuffer rec = ByteBuffer.allocate(recordBytes + 4).order(ByteOrder.LITTLE_ENDIAN);
+        rec.putInt(keyBytes.length).put(keyBytes).putInt(w).putInt(h);
+        rec.asIntBuffer().put(argb);
+        rec.position(rec.limit()).flip();
+        long pos = size;
+        writeFully(channel, rec, pos);
+        size = pos + recordBytes;
+        Slot old = index.put(key, new Slot(pos + 12 + keyBytes.length, w, h, recordBytes));
+        if (old != null) deadBytes += old.recordBytes;
+        maybeCompact();
+    }
+
+    /**
+     * Drop {@code key} by appending a tombstone; the space is reclaimed at the next compaction.
+     */
+    public synchronized void remove(String key) throws IOException {
+        Slot old = index.remove(key);
+        if (old == null) return;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        ByteBuffer rec = ByteBuffer.allocate(12 + keyBytes.length + 4).order(ByteOrder.LITTLE_ENDIAN);
+        rec.putInt(keyBytes.length).put(keyBytes).putInt(0).putInt(0).putInt(0).flip();
+        writeFully(channel, rec, size);
+        size += 12 + keyBytes.length;
+        deadBytes += old.recordBytes + 12 + keyBytes.length;
+        maybeCompact();
+    }
+
+    public synchronized void clear() throws IOException {
+        resetToHeader();
+    }
+
+    private void maybeCompact() throws IOException {
+        if (deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes * 2 > size) compact();
+    }
+
+    /**
+     * Move the live records to the start of the file, in place, and drop the rest.
+     */
+    public synchronized void compact() throws IOException {
+        if (deadBytes == 0) return;
+        List<Slot> live = new ArrayList<>(index.values());
+        // keep file order so sequential readers stay sequential; records only ever move towards
+        // the start, so none is overwritten before it has been copied
+        live.sort((a, b) -> Long.compare(a.offset, b.offset));
+        long pos = HEADER_BYTES;
+        ByteBuffer buf = ByteBuffer.allocate(0);
+        for (Slot s : live) {
+            long recordStart = s.offset - (s.recordBytes - (long) s.width * s.height * 4);
+            if (recordStart != pos) {
+                if (buf.capacity() < s.recordBytes) buf = ByteBuffer.allocate(s.recordBytes);
+                buf.clear().limit(s.recordBytes);
+                while (buf.hasRemaining()) {
+                    if (channel.read(buf, recordStart + buf.position()) < 0) throw new IOException("Icon pack shrank");
+                }
+                writeFully(channel, buf.flip(), pos);
+            }
+            pos += s.recordBytes;
+        }
+        writeFully(channel, ByteBuffer.allocate(4), pos);
+        channel.force(false);
+        compactions++;
+        index.clear();
+        deadBytes = 0;
+        map = null;
+        load();
+    }
+
+    private static long writeFully(FileChannel ch, ByteBuffer buf, long pos) throws IOException {
+        long p = pos;
+        while (buf.hasRemaining()) p += ch.write(buf, p);
+        return p;
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Snapshot of the keys currently in the pack.
+     */
+    public synchronized List<String> keys() {
+        return new ArrayList<>(index.keySet());
+    }
+
+    /**
+     * Bytes taken by the record for {@code key}, or 0 if it is not in the pack.
+     */
+    public synchronized long recordBytes(String key) {
+        Slot s = index.get(key);
+        return s != null ? s.recordBytes : 0;
+    }
+
+    /**
+     * Bytes in the pack file, including superseded records not yet compacted.
+     */
+    public synchronized long getFileBytes() {
+        return size;
+    }
+
+    public synchronized long getDeadBytes() {
+        return deadBytes;
+    }
+
+    public synchronized long getCompactionCount() {
+        return compactions;
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map = null;
+        try {
+            channel.close();
+        } finally {
+            OPEN.remove(file);
+        }
+    }
+
+    private static final class Slot {
+        final long offset;
+        final int width;
+        final int height;
+        final int recordBytes;
+
+        Slot(long offset, int width, int height, int recordBytes) {
+            this.offset = offset;
+            this.width = width;
+            this.height = height;
+            this.recordBytes = recordBytes;
+        }
+    }
+}
@@ -0,0 +1,274 @@
+package com.weatherapp;
+
+import com.google.gson.*;
+import com.weatherapp.models.Location;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Maps free-text location queries to canonical WeatherAPI locations.
+ * <p>
+ * Queries are normalized first (case, spacing, comma spacing, coordinate precision), then
+ * resolved once through {@code search.json} to a {@link Location}, whose {@link Location#query()}
+ * ({@code id:<n>}) is what {@link WeatherService} sends and caches under. So "london",
+ * "London " and "London, UK" each cost one cheap search at most once, and then share one forecast
+ * request and one cache entry. The mapping is bounded (least recently used entries go first) and
+ * persisted as JSON, written in the background after each new resolution.
+ */
+public class LocationResolver {
+    public static final int MAX_ENTRIES = 2000;
+    private static final Pattern COORDINATES = Pattern.compile("^(-?\\d{1,3}(?:\\.\\d+)?)\\s*,\\s*(-?\\d{1,3}(?:\\.\\d+)?)$");
+
+    private final HttpClient client;
+    private final String baseUrl;
+    private final String apiKey;
+    private final Path file;
+    private final LinkedHashMap<String, Location> byQuery = new LinkedHashMap<>(64, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Location> eldest) {
+            return size() > MAX_ENTRIES;
+        }
+    };
+    private final SingleFlight<String, Location> inFlight = new SingleFlight<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "LocationResolver-Writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicBoolean saveQueued = new AtomicBoolean();
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong searches = new AtomicLong();
+
+    /**
+     * Resolver that searches through {@code client} and persists to {@code file}; a null file
+     * keeps the mapping in memory only.
+     */
+    public LocationResolver(HttpClient client, String baseUrl, String apiKey, Path file) {
+        this.client = client;
+        this.baseUrl = baseUrl;
+        this.apiKey = apiKey;
+        this.file = file;
+        load();
+    }
+
+    /**
+     * Canonical form of a query: trimmed, lower case, single spaces, {@code ", "} between parts
+     * and coordinates at four decimals (about 10 m).
+     */
+    public static String normalize(String query) {
+        if (query == null) return "";
+        String q = query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+        double[] point = coordinates(q);
+        if (point != null) return String.format(Locale.ROOT, "%.4f,%.4f", point[0], point[1]);
+        q = q.replaceAll("\\s*,\\s*", ", ").replaceAll("^[,. ]+|[,. ]+$", "");
+        return q;
+    }
+
+    /**
+     * {@code {lat, lon}} if {@code query} is a coordinate pair, otherwise null.
+     */
+    public static double[] coordinates(String query) {
+        if (query == null) return null;
+        Matcher m = COORDINATES.matcher(query.trim());
+        if (!m.matches()) return null;
+        double lat = Double.parseDouble(m.group(1));
+        double lon = Double.parseDouble(m.group(2));
+        return Math.abs(lat) <= 90 && Math.abs(lon) <= 180 ? new double[]{lat, lon} : null;
+    }
+
+    /**
+     * The location {@code query} is known to resolve to, or null if it has not been resolved yet.
+     */
+    public Location cached(String query) {
+        Location loc = lookup(normalize(query));
+        if (loc != null) hits.incrementAndGet();
+        return loc;
+    }
+
+    private Location lookup(String key) {
+        synchronized (byQuery) {
+            return byQuery.get(key);
+        }
+    }
+
+    /**
+     * Resolve {@code query}, searching WeatherAPI only if it is not already mapped. Completes
+     * with null when nothing matches or the search fails; failures are not remembered.
+     * Coordinates are never searched or mapped: rounded by {@link #normalize} they are already
+     * canonical, and mapping every GPS fix would crowd the text queries out of the mapping.
+     */
+    public CompletableFuture<Location> resolveAsync(String query, Duration timeout) {
+        String key = normalize(query);
+        if (key.isEmpty() || coordinates(key) != null) return CompletableFuture.completedFuture(null);
+        Location known = lookup(key);
+        if (known != null) {
+            hits.incrementAndGet();
+            return CompletableFuture.completedFuture(known);
+        }
+        return inFlight.execute(key, () -> search(key, timeout));
+    }
+
+    private CompletableFuture<Location> search(String key, Duration timeout) {
+        String url = String.format("%s/search.json?key=%s&q=%s", baseUrl, apiKey, URLEncoder.encode(key, StandardCharsets.UTF_8));
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET().build();
+        searches.incrementAndGet();
+        CompletableFuture<HttpResponse<String>> exchange = client.sendAsync(req, HttpResponse.BodyHandlers.ofString());
+        CompletableFuture<Location> result = WeatherService.chain(exchange, resp -> {
+            if (resp.statusCode() != 200) return null;
+            Location loc = parseFirst(resp.body());
+            if (loc != null) put(key, loc);
+            return loc;
+        });
+        return result.exceptionally(ex -> null);
+    }
+
+    /**
+     * First match of a {@code search.json} response, or null if it is empty or malformed.
+     */
+    static Location parseFirst(String json) {
+        try {
+            JsonElement root = JsonParser.parseString(json);
+            if (!root.isJsonArray() || root.getAsJsonArray().isEmpty()) return null;
+            return fromJson(root.getAsJsonArray().get(0).getAsJsonObject());
+        } catch (RuntimeException ex) {
+            return null;
+        }
+    }
+
+    /**
+     * Map {@code query} to {@code location}, e.g. from a response that already names it.
+     */
+    public void put(String query, Location location) {
+        String key = normalize(query);
+        if (key.isEmpty() || location == null || coordinates(key) != null) return;
+        synchronized (byQuery) {
+            byQuery.put(key, location);
+            // the canonical query maps to itself, so "id:123" needs no search either
+            byQuery.put(normalize(location.query()), location);
+        }
+        scheduleSave();
+    }
+
+    private void scheduleSave() {
+        if (file == null || !saveQueued.compareAndSet(false, true)) return;
+        try {
+            writer.execute(() -> {
+                saveQueued.set(false);
+                save();
+            });
+        } catch (RejectedExecutionException ex) {
+            saveQueued.set(false);
+        }
+    }
+
+    private void load() {
+        if (file == null || !Files.exists(file)) return;
+        try (Reader r = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            JsonObject root = JsonParser.parseReader(r).getAsJsonObject();
+            synchronized (byQuery) {
+                for (Map.Entry<String, JsonElement> e : root.entrySet()) {
+                    try {
+                        byQuery.put(e.getKey(), fromJson(e.getValue().getAsJsonObject()));
+                    } catch (RuntimeException ex) {
+                        // skip malformed entries
+                    }
+                }
+            }
+        } catch (Exception ex) {
+            // ignore; queries are simply resolved again
+        }
+    }
+
+    /**
+     * Write the mapping now (temp file plus rename).
+     */
+    public void save() {
+        if (file == null) return;
+        JsonObject root = new JsonObject();
+        synchronized (byQuery) {
+            for (Map.Entry<String, Location> e : byQuery.entrySet()) root.add(e.getKey(), toJson(e.getValue()));
+        }
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try {
+            if (file.getParent() != null) Files.createDirectories(file.getParent());
+            try (Writer w = Files.newBufferedWriter(tmp, StandardCharsets.UTF_8)) {
+                new Gson().toJson(root, w);
+            }
+            try {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            } catch (AtomicMoveNotSupportedException ex) {
+                Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING);
+            }
+        } catch (IOException ex) {
+            // ignore save errors
+            try {
+                Files.deleteIfExists(tmp);
+            } catch (IOException ignored) {
+            }
+        }
+    }
+
+    private static Location fromJson(JsonObject o) {
+        return new Location(o.has("id") ? o.get("id").getAsLong() : 0,
+                o.get("name").getAsString(),
+                o.has("region") ? o.get("region").getAsString() : "",
+                o.has("country") ? o.get("country").getAsString() : "",
+                o.get("lat").getAsDouble(), o.get("lon").getAsDouble());
+    }
+
+    private static JsonObject toJson(Location l) {
+        JsonObject o = new JsonObject();
+        o.addProperty("id", l.id());
+        o.addProperty("name", l.name());
+        o.addProperty("region", l.region());
+        o.addProperty("country", l.country());
+        o.addProperty("lat", l.lat());
+        o.addProperty("lon", l.lon());
+        return o;
+    }
+
+    public int size() {
+        synchronized (byQuery) {
+            return byQuery.size();
+        }
+    }
+
+    /**
+     * Lookups answered from the mapping without a search.
+     */
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    /**
+     * {@code search.json} requests issued.
+     */
+    public long getSearchCount() {
+        return searches.get();
+    }
+}
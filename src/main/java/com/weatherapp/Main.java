@@ -1,7 +1,10 @@
 package com.weatherapp;
 
 import com.weatherapp.models.ForecastEntry;
+import com.weatherapp.models.Units;
 import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
+import com.weatherapp.models.WeatherSnapshot;
 import com.formdev.flatlaf.FlatDarkLaf;
 import com.formdev.flatlaf.FlatLightLaf;
 
@@ -10,11 +13,21 @@ import javax.swing.border.EmptyBorder;
 import java.awt.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
 import java.time.Instant;
 import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Main entry point for the Weather Information App.
@@ -22,8 +35,17 @@ import java.util.Objects;
  * This Swing application lets users search a city name and retrieve current weather
  * and a short-term forecast from OpenWeatherMap. The API key must be provided via
  * the environment variable OPENWEATHER_API_KEY.
+ * <p>
+ * On launch the last searched city is shown straight away from the saved weather snapshot,
+ * labelled with the time it was observed, and refreshed in the background.
  */
 public class Main {
+    /** Side of the current-conditions icon, in px. */
+    private static final int CURRENT_ICON_SIZE = 120;
+    /** Forecast rows shown in the list. */
+    private static final int FORECAST_ROWS = 5;
+    /** How long a forecast icon whose download failed waits before it is tried again. */
+    private static final int ICON_RETRY_MILLIS = 30_000;
 
     public static void main(String[] args) {
         // Start Swing UI on the Event Dispatch Thread
@@ -122,7 +144,7 @@ public class Main {
 
     JLabel iconLabel = new JLabel();
     iconLabel.setHorizontalAlignment(SwingConstants.CENTER);
-    iconLabel.setPreferredSize(new Dimension(120, 120));
+    iconLabel.setPreferredSize(new Dimension(CURRENT_ICON_SIZE, CURRENT_ICON_SIZE));
 
         currentPanel.add(iconLabel, BorderLayout.WEST);
         currentPanel.add(currentInfo, BorderLayout.CENTER);
@@ -138,11 +160,15 @@ public class Main {
     forecastPanel.setOpaque(false);
     forecastPanel.setBorder(BorderFactory.createTitledBorder("Short-term Forecast"));
     DefaultListModel<ForecastEntry> forecastListModel = new DefaultListModel<>();
-    // icon cache needs to be available for the renderer
-    IconCache iconCacheLocal = new IconCache();
+    // one icon cache for the whole UI: each icon is fetched and decoded once, whatever its size
+    IconCache iconCache = new IconCache();
     JList<ForecastEntry> forecastList = new JList<>(forecastListModel);
-    forecastList.setCellRenderer(new ForecastCellRenderer(iconCacheLocal));
-    forecastPanel.add(new JScrollPane(forecastList), BorderLayout.CENTER);
+    ForecastCellRenderer forecastRenderer = new ForecastCellRenderer(iconCache);
+    forecastList.setCellRenderer(forecastRenderer);
+    JScrollPane forecastScroll = new JScrollPane(forecastList);
+    // drop queued icon downloads for rows that scrolled out of view
+    forecastScroll.getViewport().addChangeListener(e -> forecastRenderer.cancelHidden(forecastList));
+    forecastPanel.add(forecastScroll, BorderLayout.CENTER);
 
         rightPanel.add(forecastPanel, BorderLayout.CENTER);
 
@@ -189,15 +215,39 @@ public class Main {
         }
     }
 
-    WeatherService weatherService = new WeatherService();
+    // opening the snapshot store maps a file, so the service is built off the EDT; searches wait
+    // for it on their worker threads
+    CompletableFuture<WeatherService> weatherServiceReady = CompletableFuture.supplyAsync(WeatherService::new);
     HistoryManager historyManager = new HistoryManager();
 
-    // icon loader/cache (shared instance used for loading in workers)
-    IconCache iconCache = new IconCache();
+    frame.addWindowListener(new WindowAdapter() {
+        @Override
+        public void windowClosing(WindowEvent e) {
+            iconCache.shutdown();
+            historyManager.shutdown();
+            weatherServiceReady.thenAccept(WeatherService::shutdown);
+        }
+    });
 
     // Load history into UI
     historyManager.getHistory().forEach(h -> historyListModel.addElement(h));
 
+    // city autocomplete; the index (bundled gazetteer plus history) is rebuilt off the EDT
+    CitySuggestionPopup citySuggestions = new CitySuggestionPopup(cityField, 8);
+    ExecutorService cityIndexBuilder = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "CityIndex-Builder");
+        t.setDaemon(true);
+        return t;
+    });
+    Runnable rebuildCityIndex = () -> cityIndexBuilder.execute(() -> citySuggestions.setIndex(
+            CityIndex.build(CityIndex.bundled(), historyManager.getHistory(), Instant.now().getEpochSecond())));
+    rebuildCityIndex.run();
+
+    WeatherView view = new WeatherView(cityTitle, tempLabel, condLabel, humidityLabel, windLabel, updatedLabel,
+            iconLabel, forecastListModel, root, iconCache);
+    // bumped by every search, so a late startup refresh never overwrites what the user asked for
+    AtomicInteger searches = new AtomicInteger();
+
         // Action listener for search
         ActionListener doSearch = new ActionListener() {
             @Override
@@ -213,6 +263,7 @@ public class Main {
                 String units = unitsCombo.getSelectedIndex() == 0 ? "metric" : "imperial";
 
                 statusLabel.setText("Fetching weather for " + city + "...");
+                searches.incrementAndGet();
 
                 // Run network call off the EDT
                 SwingWorker<Void, Void> worker = new SwingWorker<>() {
@@ -222,8 +273,10 @@ public class Main {
                     @Override
                     protected Void doInBackground() {
                         try {
-                            weatherData = weatherService.getCurrentWeather(city, units);
-                            forecast = weatherService.getForecast(city, units);
+                            WeatherReport report = weatherServiceReady.join().getWeather(city, units);
+                            weatherData = report.getCurrent();
+                            // only the upcoming hours shown in the list are materialized
+                            forecast = report.getHourly().next(FORECAST_ROWS, Instant.now().getEpochSecond());
                         } catch (Exception ex) {
                             ex.printStackTrace();
                             JOptionPane.showMessageDialog(frame, "Error fetching weather: " + ex.getMessage(),
@@ -234,60 +287,16 @@ public class Main {
 
                     @Override
                     protected void done() {
-            if (weatherData != null) {
-                            cityTitle.setText(String.format("%s, %s", weatherData.getCityName(), weatherData.getCountry()));
-                tempLabel.setText(String.format("%.1f %s", weatherData.getTemperature(),
-                    units.equals("metric") ? "°C" : "°F"));
-                            condLabel.setText("Condition: " + weatherData.getDescription());
-                            humidityLabel.setText("Humidity: " + weatherData.getHumidity() + "%");
-                            windLabel.setText(String.format("Wind: %.1f %s", weatherData.getWindSpeed(),
-                                    units.equals("metric") ? "m/s" : "mph"));
-
-                            // updated time
-                            Instant instant = Instant.ofEpochSecond(weatherData.getTimestamp());
-                            DateTimeFormatter fmt = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
-                                    .withZone(ZoneId.systemDefault());
-                            updatedLabel.setText("Updated: " + fmt.format(instant));
-
-                            // load icon asynchronously using IconCache
-                            if (weatherData.getIcon() != null && !weatherData.getIcon().isEmpty()) {
-                                String iconUrl = weatherData.getIcon();
-                                iconCache.loadIcon(iconUrl, icon -> iconLabel.setIcon(icon));
-                            } else {
-                                iconLabel.setIcon(null);
-                            }
-
-                            // dynamic background based on local hour
-                            try {
-                int hour = Instant.ofEpochSecond(weatherData.getTimestamp())
-                    .atZone(ZoneId.systemDefault()).getHour();
-                root.setHour(hour);
-                root.repaint();
-                            } catch (Exception ex) {
-                                // ignore
-                            }
+                        if (weatherData != null) {
+                            view.show(weatherData, forecast, units);
 
                             // save history
                             historyManager.addEntry(city, weatherData.getTimestamp());
                             historyListModel.removeAllElements();
                             historyManager.getHistory().forEach(h -> historyListModel.addElement(h));
-                        }
-
-                        // update forecast list
-                        forecastListModel.clear();
-                        if (forecast != null) {
-                            // show next 5 forecast entries
-                            int limit = Math.min(5, forecast.size());
-                            DateTimeFormatter ffmt = DateTimeFormatter.ofPattern("MMM dd HH:mm")
-                                    .withZone(ZoneId.systemDefault());
-                            for (int i = 0; i < limit; i++) {
-                                ForecastEntry fe = forecast.get(i);
-                                // preload icons for smoother rendering
-                                if (fe.getIcon() != null && !fe.getIcon().isEmpty()) {
-                                    iconCache.loadIcon(fe.getIcon(), ic -> forecastList.repaint());
-                                }
-                                forecastListModel.addElement(fe);
-                            }
+                            rebuildCityIndex.run();
+                        } else {
+                            view.showForecast(null);
                         }
 
                         statusLabel.setText("Ready");
@@ -300,9 +309,154 @@ public class Main {
         searchBtn.addActionListener(doSearch);
         cityField.addActionListener(doSearch);
 
+        List<HistoryManager.HistoryEntry> recent = historyManager.getHistory();
+        String lastCity = recent.isEmpty() ? null : recent.get(0).getCity();
+        if (lastCity != null) {
+            cityField.setText(lastCity);
+            statusLabel.setText("Refreshing weather for " + lastCity + "...");
+        }
+
         frame.setContentPane(root);
         frame.setLocationRelativeTo(null);
         frame.setVisible(true);
+
+        if (lastCity != null) {
+            int generation = searches.get();
+            String units = unitsCombo.getSelectedIndex() == 0 ? "metric" : "imperial";
+            // read the last viewed city's saved snapshot off the EDT, paint it as soon as it is
+            // loaded, then revalidate it; only fields whose values changed are repainted
+            weatherServiceReady.thenAcceptAsync(weatherService -> {
+                WeatherSnapshot last = weatherService.getLastKnown(lastCity);
+                SwingUtilities.invokeLater(() -> {
+                    if (searches.get() != generation || last == null) return;
+                    WeatherReport saved = last.toReport(Units.of(units), last.forecastDays() * 24);
+                    view.show(saved.getCurrent(), saved.getHourly().next(FORECAST_ROWS, Instant.now().getEpochSecond()), units);
+                    view.showAsOf(saved.getCurrent().getTimestamp(), true);
+                });
+                weatherService.getWeatherAsync(lastCity, units).whenComplete((report, ex) -> SwingUtilities.invokeLater(() -> {
+                    if (searches.get() != generation) return;
+                    if (report != null) {
+                        view.show(report.getCurrent(), report.getHourly().next(FORECAST_ROWS, Instant.now().getEpochSecond()), units);
+                        if (report.isOffline()) {
+                            view.showAsOf(report.getCurrent().getTimestamp(), false);
+                            statusLabel.setText("Offline; showing saved weather for " + lastCity);
+                        } else {
+                            statusLabel.setText("Ready");
+                        }
+                    } else {
+                        if (last != null) view.showAsOf(last.current().timestamp(), false);
+                        statusLabel.setText("Could not refresh weather for " + lastCity + "; showing saved data");
+                    }
+                }));
+            }).exceptionally(ex -> {
+                // the service could not be created, e.g. without an API key
+                SwingUtilities.invokeLater(() -> {
+                    if (searches.get() == generation) statusLabel.setText("Could not refresh weather for " + lastCity);
+                });
+                return null;
+            });
+        }
+    }
+
+    /**
+     * The current-conditions labels and forecast list. Every update only touches the fields
+     * whose values differ from what is shown, so a background refresh does not flicker.
+     */
+    private static final class WeatherView {
+        private static final DateTimeFormatter UPDATED_FMT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm")
+                .withZone(ZoneId.systemDefault());
+
+        private final JLabel cityTitle;
+        private final JLabel tempLabel;
+        private final JLabel condLabel;
+        private final JLabel humidityLabel;
+        private final JLabel windLabel;
+        private final JLabel updatedLabel;
+        private final JLabel iconLabel;
+        private final DefaultListModel<ForecastEntry> forecastModel;
+        private final GradientPanel root;
+        private final IconCache iconCache;
+        private String iconUrl;
+
+        WeatherView(JLabel cityTitle, JLabel tempLabel, JLabel condLabel, JLabel humidityLabel, JLabel windLabel,
+                    JLabel updatedLabel, JLabel iconLabel, DefaultListModel<ForecastEntry> forecastModel,
+                    GradientPanel root, IconCache iconCache) {
+            this.cityTitle = cityTitle;
+            this.tempLabel = tempLabel;
+            this.condLabel = condLabel;
+            this.humidityLabel = humidityLabel;
+            this.windLabel = windLabel;
+            this.updatedLabel = updatedLabel;
+            this.iconLabel = iconLabel;
+            this.forecastModel = forecastModel;
+            this.root = root;
+            this.iconCache = iconCache;
+        }
+
+        void show(WeatherData weatherData, List<ForecastEntry> forecast, String units) {
+            boolean metric = units.equals("metric");
+            setText(cityTitle, String.format("%s, %s", weatherData.getCityName(), weatherData.getCountry()));
+            setText(tempLabel, String.format("%.1f %s", weatherData.getTemperature(), metric ? "°C" : "°F"));
+            setText(condLabel, "Condition: " + weatherData.getDescription());
+            setText(humidityLabel, "Humidity: " + weatherData.getHumidity() + "%");
+            setText(windLabel, String.format("Wind: %.1f %s", weatherData.getWindSpeed(), metric ? "m/s" : "mph"));
+            setText(updatedLabel, "Updated: " + UPDATED_FMT.format(Instant.ofEpochSecond(weatherData.getTimestamp())));
+
+            // load icon asynchronously using IconCache, only when it changed
+            String url = weatherData.getIcon() != null ? weatherData.getIcon() : "";
+            if (!url.equals(iconUrl)) {
+                iconUrl = url;
+                if (url.isEmpty()) {
+                    iconLabel.setIcon(null);
+                } else {
+                    iconCache.loadIcon(url, CURRENT_ICON_SIZE, icon -> {
+                        if (url.equals(iconUrl)) iconLabel.setIcon(icon);
+                    });
+                }
+            }
+
+            // dynamic background based on local hour
+            try {
+                int hour = Instant.ofEpochSecond(weatherData.getTimestamp()).atZone(ZoneId.systemDefault()).getHour();
+                if (hour != root.getHour()) {
+                    root.setHour(hour);
+                    root.repaint();
+                }
+            } catch (Exception ex) {
+                // ignore
+            }
+            showForecast(forecast);
+        }
+
+        /**
+         * Label the shown data as a saved observation from {@code epochSeconds}, optionally with
+         * a refresh under way.
+         */
+        void showAsOf(long epochSeconds, boolean refreshing) {
+            setText(updatedLabel, "As of " + UPDATED_FMT.format(Instant.ofEpochSecond(epochSeconds))
+                    + (refreshing ? " (refreshing)" : ""));
+        }
+
+        void showForecast(List<ForecastEntry> forecast) {
+            int n = forecast != null ? Math.min(FORECAST_ROWS, forecast.size()) : 0;
+            for (int i = 0; i < n; i++) {
+                ForecastEntry fe = forecast.get(i);
+                // preload icons for smoother rendering; the renderer repaints on arrival
+                iconCache.prefetch(fe.getIcon());
+                if (i >= forecastModel.size()) forecastModel.addElement(fe);
+                else if (!sameRow(forecastModel.get(i), fe)) forecastModel.set(i, fe);
+            }
+            if (forecastModel.size() > n) forecastModel.removeRange(n, forecastModel.size() - 1);
+        }
+
+        private static boolean sameRow(ForecastEntry a, ForecastEntry b) {
+            return a.getTimestamp() == b.getTimestamp() && a.getTemperature() == b.getTemperature()
+                    && Objects.equals(a.getDescription(), b.getDescription()) && Objects.equals(a.getIcon(), b.getIcon());
+        }
+
+        private static void setText(JLabel label, String text) {
+            if (!text.equals(label.getText())) label.setText(text);
+        }
     }
 
     /**
@@ -332,6 +486,10 @@ public class Main {
             this.hour = hour;
         }
 
+        public int getHour() {
+            return hour;
+        }
+
         @Override
         protected void paintComponent(Graphics g) {
             super.paintComponent(g);
@@ -352,6 +510,9 @@ public class Main {
         private final JLabel icon = new JLabel();
         private final JLabel title = new JLabel();
         private final IconCache iconCache;
+        private final Set<String> awaiting = new HashSet<>();
+        // URLs whose load failed, and when they may be tried again
+        private final Map<String, Long> retryAt = new HashMap<>();
 
         public ForecastCellRenderer(IconCache iconCache) {
             this.iconCache = Objects.requireNonNull(iconCache);
@@ -370,17 +531,49 @@ public class Main {
             String when = ffmt.format(Instant.ofEpochSecond(value.getTimestamp()));
             String temp = String.format("%.1f", value.getTemperature());
             title.setText(String.format("%s — %s — %s", when, temp, value.getDescription()));
-            // try to load icon (async)
             icon.setIcon(null);
-            if (value.getIcon() != null && !value.getIcon().isEmpty()) {
-                iconCache.loadIcon(value.getIcon(), ic -> {
-                    icon.setIcon(ic);
-                    list.repaint();
-                });
+            String url = value.getIcon();
+            if (url != null && !url.isEmpty()) {
+                ImageIcon cached = iconCache.getCached(url);
+                if (cached != null) {
+                    icon.setIcon(cached);
+                } else {
+                    icon.setIcon(iconCache.getPlaceholder());
+                    // one pending load and one repaint per URL, however often the list paints meanwhile;
+                    // a failed URL is retried on a later paint once its backoff has passed
+                    Long retry = retryAt.get(url);
+                    if ((retry == null || System.currentTimeMillis() >= retry) && awaiting.add(url)) {
+                        retryAt.remove(url);
+                        iconCache.load(url).whenComplete((ic, ex) -> SwingUtilities.invokeLater(() -> {
+                            // not awaited any more if cancelHidden dropped it; that is not a failure
+                            if (awaiting.remove(url) && ic == null) {
+                                retryAt.put(url, System.currentTimeMillis() + ICON_RETRY_MILLIS);
+                                Timer retryPaint = new Timer(ICON_RETRY_MILLIS, t -> list.repaint());
+                                retryPaint.setRepeats(false);
+                                retryPaint.start();
+                            }
+                            list.repaint();
+                        }));
+                    }
+                }
             }
             if (isSelected) setBackground(new Color(0,0,0,30));
             return this;
         }
+
+        /**
+         * Cancel still-queued icon loads requested for rows that are no longer visible.
+         */
+        void cancelHidden(JList<? extends ForecastEntry> list) {
+            if (awaiting.isEmpty()) return;
+            Set<String> visible = new HashSet<>();
+            int first = list.getFirstVisibleIndex();
+            int last = list.getLastVisibleIndex();
+            for (int i = Math.max(0, first); first >= 0 && i <= last; i++) {
+                visible.add(list.getModel().getElementAt(i).getIcon());
+            }
+            awaiting.removeIf(url -> !visible.contains(url) && iconCache.cancelQueued(url));
+        }
     }
 
     // Renderer for history entries
@@ -0,0 +1,160 @@
+package com.weatherapp;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Small in-memory TTL cache for WeatherAPI responses.
+ * <p>
+ * Entries are keyed by a normalized query string and expire {@code ttl} after the
+ * provider's {@code last_updated_epoch} (WeatherAPI refreshes observations roughly every
+ * 15 minutes), but never sooner than {@code minFresh} after they were stored. When the
+ * cache holds more than {@code maxEntries} items the least recently used one is evicted.
+ */
+public class ResponseCache<V> {
+    private final Duration ttl;
+    private final Duration minFresh;
+    private final int maxEntries;
+    private final Clock clock;
+    private final LinkedHashMap<String, Entry<V>> entries;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    public ResponseCache(Duration ttl, int maxEntries) {
+        this(ttl, Duration.ofMinutes(1), maxEntries, Clock.systemUTC());
+    }
+
+    public ResponseCache(Duration ttl, Duration minFresh, int maxEntries, Clock clock) {
+        this.ttl = ttl;
+        this.minFresh = minFresh;
+        this.maxEntries = Math.max(1, maxEntries);
+        this.clock = clock;
+        // access-ordered so the eldest entry is always the least recently used one
+        this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Entry<V>> eldest) {
+                if (size() > ResponseCache.this.maxEntries) {
+                    evictions.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    /**
+     * Normalize a free-text query so that "London", " london " and "LONDON" share one entry.
+     */
+    public static String normalizeKey(String query) {
+        if (query == null) return "";
+        return query.trim().replaceAll("\\s+", " ").toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Return the cached value for {@code key}, or null when absent or expired.
+     */
+    public synchronized V get(String key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) {
+            misses.incrementAndGet();
+            return null;
+        }
+        if (clock.millis() >= e.expiresAtMillis) {
+            entries.remove(key);
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return e.value;
+    }
+
+    /**
+     * Return the value cached under the first of {@code keys} that has one, or null. Counts a
+     * single hit or miss for the whole lookup.
+     */
+    public synchronized V getFirst(String... keys) {
+        for (String key : keys) {
+            V v = peek(key);
+            if (v != null) {
+                hits.incrementAndGet();
+                return v;
+            }
+        }
+        misses.incrementAndGet();
+        return null;
+    }
+
+    /**
+     * Like {@link #get(String)}, but without counting a hit or miss; for probes that are not
+     * lookups on behalf of a caller.
+     */
+    public synchronized V peek(String key) {
+        Entry<V> e = entries.get(key);
+        if (e == null) return null;
+        if (clock.millis() >= e.expiresAtMillis) {
+            entries.remove(key);
+            return null;
+        }
+        return e.value;
+    }
+
+    /**
+     * Store {@code value} for {@code key}. {@code lastUpdatedEpoch} is the provider's
+     * observation time in epoch seconds; pass 0 when unknown to use the fetch time.
+     */
+    public synchronized void put(String key, V value, long lastUpdatedEpoch) {
+        long now = clock.millis();
+        long base = lastUpdatedEpoch > 0 ? lastUpdatedEpoch * 1000L : now;
+        long expiresAt = Math.max(base + ttl.toMillis(), now + minFresh.toMillis());
+        entries.put(key, new Entry<>(value, expiresAt));
+    }
+
+    /**
+     * Whether a value observed at {@code lastUpdatedEpoch} (or stored at {@code storedAtMillis}
+     * when that is unknown) would still be within the TTL now.
+     */
+    public boolean isFresh(long lastUpdatedEpoch, long storedAtMillis) {
+        long base = lastUpdatedEpoch > 0 ? lastUpdatedEpoch * 1000L : storedAtMillis;
+        return clock.millis() < base + ttl.toMillis();
+    }
+
+    public synchronized void invalidate(String key) {
+        entries.remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public long getHitCount() {
+        return hits.get();
+    }
+
+    public long getMissCount() {
+        return misses.get();
+    }
+
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    private static final class Entry<V> {
+        final V value;
+        final long expiresAtMillis;
+
+        Entry(V value, long expiresAtMillis) {
+            this.value = value;
+            this.expiresAtMillis = expiresAtMillis;
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.weatherapp;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces concurrent requests for the same key into one in-flight operation.
+ * <p>
+ * The first caller for a key starts the operation; callers arriving while it is still running
+ * get their own future that completes with the same result or error. Cancelling one caller's
+ * future only detaches that caller; the shared operation is cancelled once every caller has
+ * cancelled.
+ */
+public class SingleFlight<K, V> {
+    private final ConcurrentHashMap<K, Call<V>> calls = new ConcurrentHashMap<>();
+    private final AtomicLong started = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+
+    public CompletableFuture<V> execute(K key, Supplier<CompletableFuture<V>> loader) {
+        while (true) {
+            Call<V> call = calls.get(key);
+            if (call != null) {
+                CompletableFuture<V> f = call.subscribe();
+                if (f != null) {
+                    coalesced.incrementAndGet();
+                    return f;
+                }
+                // every earlier caller cancelled; start over with a fresh call
+                calls.remove(key, call);
+                continue;
+            }
+            Call<V> fresh = new Call<>();
+            if (calls.putIfAbsent(key, fresh) != null) continue;
+            started.incrementAndGet();
+            CompletableFuture<V> mine = fresh.subscribe();
+            CompletableFuture<V> upstream;
+            try {
+                upstream = loader.get();
+            } catch (RuntimeException ex) {
+                upstream = CompletableFuture.failedFuture(ex);
+            }
+            upstream.whenComplete((v, ex) -> calls.remove(key, fresh));
+            fresh.attach(upstream);
+            return mine;
+        }
+    }
+
+    /**
+     * Number of operations actually started (i.e. upstream requests issued).
+     */
+    public long getStartedCount() {
+        return started.get();
+    }
+
+    /**
+     * Number of callers that joined an already running operation instead of starting one.
+     */
+    public long getCoalescedCount() {
+        return coalesced.get();
+    }
+
+    /**
+     * Number of keys with an operation currently in flight.
+     */
+    public int getInFlightCount() {
+        return calls.size();
+    }
+
+    private static final class Call<V> {
+        private final CompletableFuture<V> result = new CompletableFuture<>();
+        private CompletableFuture<V> upstream;
+        private int subscribers;
+        private boolean closed;
+
+        synchronized CompletableFuture<V> subscribe() {
+            if (closed) return null;
+            subscribers++;
+            CompletableFuture<V> f = new CompletableFuture<>();
+            result.whenComplete((v, ex) -> {
+                if (ex != null) f.completeExceptionally(ex);
+                else f.complete(v);
+            });
+            f.whenComplete((v, ex) -> {
+                if (f.isCancelled()) unsubscribe();
+            });
+            return f;
+        }
+
+        private void unsubscribe() {
+            boolean abandon;
+            CompletableFuture<V> up;
+            synchronized (this) {
+                subscribers--;
+                abandon = subscribers == 0 && !result.isDone();
+                if (abandon) closed = true;
+                up = upstream;
+            }
+            if (abandon) {
+                result.cancel(true);
+                if (up != null) up.cancel(true);
+            }
+        }
+
+        void attach(CompletableFuture<V> up) {
+            boolean cancelNow;
+            synchronized (this) {
+                upstream = up;
+                cancelNow = closed;
+            }
+            if (cancelNow) {
+                up.cancel(true);
+                return;
+            }
+            up.whenComplete((v, ex) -> {
+                if (ex != null) result.completeExceptionally(ex);
+                else result.complete(v);
+            });
+        }
+    }
+}
@@ -1,8 +1,10 @@
 package com.weatherapp;
 
 import com.google.gson.*;
+import com.weatherapp.models.ConditionRegistry;
 import com.weatherapp.models.ForecastEntry;
 import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
 
 import java.util.ArrayList;
 import java.util.List;
@@ -14,7 +16,14 @@ import java.util.List;
 public class WeatherApiParser {
 
     public static WeatherData parseCurrent(String json, String units) {
-        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+        return parseCurrent(JsonParser.parseString(json).getAsJsonObject(), units);
+    }
+
+    /**
+     * Parse an already-decoded object holding {@code location} and {@code current} blocks,
+     * e.g. one item of a bulk response.
+     */
+    public static WeatherData parseCurrent(JsonObject obj, String units) {
         JsonObject loc = obj.getAsJsonObject("location");
         JsonObject cur = obj.getAsJsonObject("current");
         WeatherData wd = new WeatherData();
@@ -33,19 +42,27 @@ public class WeatherApiParser {
         }
         JsonObject cond = cur.getAsJsonObject("condition");
         if (cond != null) {
-            wd.setDescription(cond.has("text") ? cond.get("text").getAsString() : "");
-            String icon = cond.has("icon") ? cond.get("icon").getAsString() : "";
-            if (icon.startsWith("//")) icon = "https:" + icon;
-            wd.setIcon(icon);
+            ConditionRegistry.Condition c = condition(cond, cur);
+            wd.setDescription(c.getDescription());
+            wd.setIcon(c.getIcon());
+            wd.setConditionCode(c.getCode());
         }
         if (cur.has("last_updated_epoch")) {
             wd.setTimestamp(cur.get("last_updated_epoch").getAsLong());
+        } else if (loc.has("localtime_epoch")) {
+            wd.setTimestamp(loc.get("localtime_epoch").getAsLong());
         }
         return wd;
     }
 
     public static List<ForecastEntry> parseForecast(String json, String units) {
-        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+        return parseForecast(JsonParser.parseString(json).getAsJsonObject(), units);
+    }
+
+    /**
+     * Parse the hourly entries of an already-decoded forecast.json object.
+     */
+    public static List<ForecastEntry> parseForecast(JsonObject obj, String units) {
         JsonObject forecast = obj.getAsJsonObject("forecast");
         List<ForecastEntry> result = new ArrayList<>();
         if (forecast != null && forecast.has("forecastday")) {
@@ -64,10 +81,10 @@ public class WeatherApiParser {
                     }
                     JsonObject cond = he.getAsJsonObject("condition");
                     if (cond != null) {
-                        fe.setDescription(cond.has("text") ? cond.get("text").getAsString() : "");
-                        String icon = cond.has("icon") ? cond.get("icon").getAsString() : "";
-                        if (icon.startsWith("//")) icon = "https:" + icon;
-                        fe.setIcon(icon);
+                        ConditionRegistry.Condition c = condition(cond, he);
+                        fe.setDescription(c.getDescription());
+                        fe.setIcon(c.getIcon());
+                        fe.setConditionCode(c.getCode());
                     }
                     result.add(fe);
                 }
@@ -75,4 +92,26 @@ public class WeatherApiParser {
         }
         return result;
     }
+
+    /**
+     * Parse a forecast.json payload into both the current conditions and the hourly forecast,
+     * decoding the JSON once.
+     */
+    public static WeatherReport parseReport(String json, String units) {
+        JsonObject obj = JsonParser.parseString(json).getAsJsonObject();
+        return new WeatherReport(parseCurrent(obj, units), parseForecast(obj, units));
+    }
+
+    /**
+     * Resolve a {@code condition} block to its shared registry entry; the day flag comes from the
+     * enclosing object's {@code is_day} when present, otherwise from the icon path.
+     */
+    private static ConditionRegistry.Condition condition(JsonObject cond, JsonObject owner) {
+        String text = cond.has("text") ? cond.get("text").getAsString() : "";
+        String icon = cond.has("icon") ? cond.get("icon").getAsString() : "";
+        int code = cond.has("code") ? cond.get("code").getAsInt() : 0;
+        boolean day = owner.has("is_day") ? owner.get("is_day").getAsInt() == 1 : !icon.contains("/night/");
+        ConditionRegistry registry = ConditionRegistry.shared();
+        return registry.get(registry.intern(code, day, text, icon));
+    }
 }
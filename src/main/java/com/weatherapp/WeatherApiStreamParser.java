@@ -0,0 +1,254 @@
+package com.weatherapp;
+
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.weatherapp.models.ConditionRegistry;
+import com.weatherapp.models.CurrentConditions;
+import com.weatherapp.models.ForecastSeries;
+import com.weatherapp.models.WeatherSnapshot;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Streaming counterpart of {@link WeatherApiParser} built on Gson's {@link JsonReader}.
+ * <p>
+ * It reads a current.json / forecast.json payload token by token, keeps only the fields the app
+ * displays and skips everything else (astro, day summaries, feels-like values, ...) without
+ * building a tree. Conditions are resolved through {@link ConditionRegistry}, so repeated
+ * descriptions and icon URLs are not copied per hour. Parsing stops once {@code maxHours} hourly entries have been read.
+ * <p>
+ * The result is an immutable {@link WeatherSnapshot} in canonical units (°C, m/s); the
+ * provider's Fahrenheit/mph duplicates are skipped and projected on read instead.
+ */
+public class WeatherApiStreamParser {
+
+    public static WeatherSnapshot parse(InputStream in, int maxHours) throws IOException {
+        return parse(new InputStreamReader(in, StandardCharsets.UTF_8), maxHours);
+    }
+
+    public static WeatherSnapshot parse(Reader in, int maxHours) throws IOException {
+        Acc acc = new Acc();
+        JsonReader r = new JsonReader(in);
+        r.beginObject();
+        while (r.hasNext()) {
+            String name = r.nextName();
+            switch (name) {
+                case "location":
+                    readLocation(r, acc);
+                    break;
+                case "current":
+                    readCurrent(r, acc);
+                    break;
+                case "forecast":
+                    // stops early only once location and current are in; otherwise the remaining
+                    // hours are skipped and the rest of the payload is read as usual
+                    if (readForecast(r, acc, maxHours)) return acc.finish();
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        return acc.finish();
+    }
+
+    private static void readLocation(JsonReader r, Acc acc) throws IOException {
+        acc.hasLocation = true;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "name":
+                    acc.cityName = nextString(r);
+                    break;
+                case "country":
+                    acc.country = nextString(r);
+                    break;
+                case "lat":
+                    acc.lat = r.nextDouble();
+                    break;
+                case "lon":
+                    acc.lon = r.nextDouble();
+                    break;
+                case "localtime_epoch":
+                    if (acc.timestamp == 0) acc.timestamp = r.nextLong();
+                    else r.skipValue();
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+    }
+
+    private static void readCurrent(JsonReader r, Acc acc) throws IOException {
+        acc.hasCurrent = true;
+        RawCondition cond = null;
+        int isDay = -1;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "temp_c":
+                    acc.tempC = r.nextDouble();
+                    break;
+                case "humidity":
+                    acc.humidity = r.nextInt();
+                    break;
+                case "wind_kph":
+                    acc.windKph = r.nextDouble();
+                    break;
+                case "last_updated_epoch":
+                    acc.timestamp = r.nextLong();
+                    break;
+                case "is_day":
+                    isDay = r.nextInt();
+                    break;
+                case "condition":
+                    cond = readCondition(r);
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        if (cond != null) acc.condition = cond.intern(isDay);
+    }
+
+    /**
+     * Returns true when parsing stopped early because {@code maxHours} entries were read and
+     * nothing else is needed; the reader is then left inside the forecast. Past {@code maxHours}
+     * with location or current still to come, the remaining hours are skipped and the forecast
+     * object is read to its end.
+     */
+    private static boolean readForecast(JsonReader r, Acc acc, int maxHours) throws IOException {
+        r.beginObject();
+        while (r.hasNext()) {
+            if (!r.nextName().equals("forecastday")) {
+                r.skipValue();
+                continue;
+            }
+            r.beginArray();
+            while (r.hasNext()) {
+                r.beginObject();
+                while (r.hasNext()) {
+                    if (!r.nextName().equals("hour")) {
+                        r.skipValue();
+                        continue;
+                    }
+                    r.beginArray();
+                    while (r.hasNext()) {
+                        if (acc.hours.size() < maxHours) {
+                            readHour(r, acc);
+                        } else if (acc.hasCurrent && acc.hasLocation) {
+                            return true;
+                        } else {
+                            r.skipValue();
+                        }
+                    }
+                    r.endArray();
+                }
+                r.endObject();
+            }
+            r.endArray();
+        }
+        r.endObject();
+        return false;
+    }
+
+    private static void readHour(JsonReader r, Acc acc) throws IOException {
+        long ts = 0;
+        double c = 0;
+        int isDay = -1;
+        RawCondition cond = null;
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "time_epoch":
+                    ts = r.nextLong();
+                    break;
+                case "temp_c":
+                    c = r.nextDouble();
+                    break;
+                case "is_day":
+                    isDay = r.nextInt();
+                    break;
+                case "condition":
+                    cond = readCondition(r);
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        acc.hours.add(ts, c, cond != null ? cond.intern(isDay) : ConditionRegistry.shared().intern("", ""));
+    }
+
+    private static RawCondition readCondition(JsonReader r) throws IOException {
+        RawCondition out = new RawCondition();
+        r.beginObject();
+        while (r.hasNext()) {
+            switch (r.nextName()) {
+                case "text":
+                    out.text = nextString(r);
+                    break;
+                case "icon":
+                    // kept as sent (possibly "//cdn..."); the registry holds the absolute URL
+                    out.icon = nextString(r);
+                    break;
+                case "code":
+                    out.code = r.nextInt();
+                    break;
+                default:
+                    r.skipValue();
+            }
+        }
+        r.endObject();
+        return out;
+    }
+
+    private static String nextString(JsonReader r) throws IOException {
+        if (r.peek() == JsonToken.NULL) {
+            r.nextNull();
+            return "";
+        }
+        return r.nextString();
+    }
+
+    /**
+     * Mutable accumulator for one payload; only ever touched by the parsing thread.
+     */
+    private static final class Acc {
+        String cityName = "";
+        String country = "";
+        boolean hasLocation;
+        boolean hasCurrent;
+        double tempC;
+        int humidity;
+        double windKph;
+        short condition = -1;
+        long timestamp;
+        double lat = Double.NaN;
+        double lon = Double.NaN;
+        final ForecastSeries.Builder hours = new ForecastSeries.Builder();
+
+        WeatherSnapshot finish() {
+            CurrentConditions current = new CurrentConditions(cityName, country, tempC, humidity,
+                    windKph / 3.6, condition, timestamp, lat, lon);
+            return new WeatherSnapshot(current, hours.build(), 0);
+        }
+    }
+
+    private static final class RawCondition {
+        String text = "";
+        String icon = "";
+        int code;
+
+        short intern(int isDay) {
+            boolean day = isDay >= 0 ? isDay == 1 : !icon.contains("/night/");
+            return ConditionRegistry.shared().intern(code, day, text, icon);
+        }
+    }
+}
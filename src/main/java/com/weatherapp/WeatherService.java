@@ -1,32 +1,149 @@
 package com.weatherapp;
 
-import com.google.gson.*;
 import com.weatherapp.models.ForecastEntry;
+import com.weatherapp.models.HourlyForecast;
+import com.weatherapp.models.Location;
+import com.weatherapp.models.Units;
 import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
+import com.weatherapp.models.WeatherSnapshot;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
 import java.net.URLEncoder;
 import java.net.http.HttpClient;
 import java.net.http.HttpRequest;
 import java.net.http.HttpResponse;
 import java.nio.charset.StandardCharsets;
-import java.time.Instant;
-import java.util.ArrayList;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * WeatherService adapted to use WeatherAPI.com (weatherapi.com).
  *
  * Environment variable checked (in order): WEATHERAPI_KEY, OPENWEATHER_API_KEY (legacy).
+ * <p>
+ * Every lookup has a non-blocking {@code ...Async} variant built on {@link HttpClient#sendAsync};
+ * the blocking methods simply wait on those futures. Free-text queries go through a
+ * {@link LocationResolver} first, so equivalent spellings share one request and cache entry.
+ * Coordinate queries are also answered from the nearest observation fetched within a radius and
+ * freshness window (see {@link #setNearbyReuse}), so GPS-style queries that never repeat exactly
+ * still share upstream requests.
+ * <p>
+ * Fetched snapshots are also written to a {@link WeatherStore} under {@code ~/.weatherapp}. After
+ * a restart, a stored snapshot that is still within the cache TTL is served without a request,
+ * and when the network is unreachable (or WeatherAPI answers 5xx) the last stored snapshot for
+ * the location is served instead of failing, for up to the store's maximum age.
  */
 public class WeatherService {
+    static final String DEFAULT_BASE_URL = "https://api.weatherapi.com/v1";
+    static final Duration DEFAULT_REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    /** Longest forecast horizon WeatherAPI serves. */
+    public static final int MAX_FORECAST_DAYS = 14;
+    /** Horizon used when callers do not ask for one; enough for several upcoming hours past midnight. */
+    public static final int DEFAULT_FORECAST_DAYS = 2;
+    /** Coordinate queries this close to a recent observation reuse it. */
+    public static final double DEFAULT_NEARBY_RADIUS_KM = 2.0;
+    /** How long after it was fetched an observation is reused nearby. */
+    public static final Duration DEFAULT_NEARBY_MAX_AGE = Duration.ofMinutes(10);
+    private static final int MAX_NEARBY_ENTRIES = 5000;
 
     private final String apiKey;
+    private final String baseUrl;
     private final HttpClient client;
-    private final Gson gson = new Gson();
+    private final ResponseCache<WeatherSnapshot> cache;
+    private final SingleFlight<String, WeatherSnapshot> inFlight = new SingleFlight<>();
+    /** Query canonicalization; null sends queries as typed. */
+    private final LocationResolver resolver;
+    private volatile double nearbyRadiusKm = DEFAULT_NEARBY_RADIUS_KM;
+    private final Duration cacheTtl;
+    private volatile GeoIndex<WeatherSnapshot> nearby;
+    private final AtomicLong nearbyHits = new AtomicLong();
+    /** Persistent snapshots; null keeps everything in memory. */
+    private final WeatherStore store;
+    private final AtomicLong storeHits = new AtomicLong();
+    private final AtomicLong offlineHits = new AtomicLong();
 
     public WeatherService() {
+        this(Duration.ofMinutes(15), 200);
+    }
+
+    /**
+     * Create a service whose response cache keeps entries {@code cacheTtl} past the provider's
+     * last update and holds at most {@code maxCacheEntries} responses.
+     */
+    public WeatherService(Duration cacheTtl, int maxCacheEntries) {
+        this(resolveApiKey(), DEFAULT_BASE_URL, defaultExecutor(), cacheTtl, maxCacheEntries, defaultLocationFile(), defaultStoreFile());
+    }
+
+    /**
+     * Create a service whose HTTP exchanges and async callbacks run on {@code executor}.
+     */
+    public WeatherService(Executor executor) {
+        this(resolveApiKey(), DEFAULT_BASE_URL, executor, Duration.ofMinutes(15), 200, defaultLocationFile(), defaultStoreFile());
+    }
+
+    /**
+     * Full constructor; {@code baseUrl} is overridable so tests can point at a local server.
+     * A null {@code executor} uses the HttpClient default.
+     */
+    WeatherService(String apiKey, String baseUrl, Executor executor, Duration cacheTtl, int maxCacheEntries) {
+        this(apiKey, baseUrl, executor, cacheTtl, maxCacheEntries, null);
+    }
+
+    /**
+     * Like the full constructor, but resolving queries through a {@link LocationResolver}
+     * persisted at {@code locationFile}; a null file disables resolution.
+     */
+    WeatherService(String apiKey, String baseUrl, Executor executor, Duration cacheTtl, int maxCacheEntries, Path locationFile) {
+        this(apiKey, baseUrl, executor, cacheTtl, maxCacheEntries, locationFile, null);
+    }
+
+    /**
+     * Like the resolving constructor, but also persisting snapshots in a {@link WeatherStore} at
+     * {@code storeFile}; a null file, or one that cannot be opened, keeps them in memory only. While
+     * another process writes the store it is opened read-only, and new snapshots stay in memory.
+     */
+    WeatherService(String apiKey, String baseUrl, Executor executor, Duration cacheTtl, int maxCacheEntries,
+                   Path locationFile, Path storeFile) {
+        this.apiKey = apiKey;
+        this.baseUrl = baseUrl;
+        HttpClient.Builder b = HttpClient.newBuilder();
+        if (executor != null) b.executor(executor);
+        this.client = b.build();
+        this.cache = new ResponseCache<>(cacheTtl, maxCacheEntries);
+        this.cacheTtl = cacheTtl;
+        setNearbyReuse(DEFAULT_NEARBY_RADIUS_KM, DEFAULT_NEARBY_MAX_AGE);
+        this.resolver = locationFile != null ? new LocationResolver(client, baseUrl, apiKey, locationFile) : null;
+        WeatherStore s = null;
+        if (storeFile != null) {
+            try {
+                s = new WeatherStore(storeFile);
+            } catch (Exception ex) {
+                // no persistent tier; responses are still cached in memory
+            }
+        }
+        this.store = s;
+    }
+
+    private static Path defaultLocationFile() {
+        return Path.of(System.getProperty("user.home"), ".weatherapp", "locations.json");
+    }
+
+    private static Path defaultStoreFile() {
+        return Path.of(System.getProperty("user.home"), ".weatherapp", "weather.store");
+    }
+
+    private static String resolveApiKey() {
         String k = System.getenv("WEATHERAPI_KEY");
         if (k == null || k.isEmpty()) {
             // fall back to older env var name if present
@@ -45,112 +162,505 @@ public class WeatherService {
         if (k == null || k.isEmpty()) {
             throw new IllegalStateException("WEATHERAPI_KEY (or OPENWEATHER_API_KEY) environment variable is not set.");
         }
-        apiKey = k;
-        client = HttpClient.newHttpClient();
+        return k;
+    }
+
+    /**
+     * Virtual threads when running on Java 21+, otherwise null (HttpClient's default pool).
+     */
+    static Executor defaultExecutor() {
+        try {
+            return (Executor) Executors.class.getMethod("newVirtualThreadPerTaskExecutor").invoke(null);
+        } catch (Exception ex) {
+            return null;
+        }
     }
 
     /**
      * Fetch current weather for the given city. Units are handled in the UI; WeatherAPI returns both C and F.
+     * Responses are cached per normalized city, so switching units or repeating a search is served locally.
      */
     public WeatherData getCurrentWeather(String city, String units) throws IOException, InterruptedException {
-        String q = URLEncoder.encode(city, StandardCharsets.UTF_8);
-        String url = String.format("https://api.weatherapi.com/v1/current.json?key=%s&q=%s&aqi=no", apiKey, q);
+        return await(getCurrentWeatherAsync(city, units));
+    }
 
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().build();
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) {
-            throw new IOException("API returned status " + resp.statusCode() + ": " + resp.body());
-        }
+    /**
+     * Fetch short-term hourly forecast for the given city. Uses the forecast endpoint and collects hourly entries.
+     */
+    public List<ForecastEntry> getForecast(String city, String units) throws IOException, InterruptedException {
+        return await(getForecastAsync(city, units));
+    }
 
-        JsonObject obj = JsonParser.parseString(resp.body()).getAsJsonObject();
-        JsonObject loc = obj.getAsJsonObject("location");
-        JsonObject cur = obj.getAsJsonObject("current");
+    /**
+     * Fetch current conditions and the hourly forecast with a single forecast.json request.
+     * This is the preferred call for a search since it costs one round-trip instead of two.
+     */
+    public WeatherReport getWeather(String city, String units) throws IOException, InterruptedException {
+        return await(getWeatherAsync(city, units));
+    }
 
-        WeatherData wd = new WeatherData();
-        wd.setCityName(loc.has("name") ? loc.get("name").getAsString() : city);
-        wd.setCountry(loc.has("country") ? loc.get("country").getAsString() : "");
+    public CompletableFuture<WeatherData> getCurrentWeatherAsync(String city, String units) {
+        return getCurrentWeatherAsync(city, units, DEFAULT_REQUEST_TIMEOUT);
+    }
 
-        // WeatherAPI returns both metric and imperial temps; pick based on units requested
-        if (units != null && units.equalsIgnoreCase("imperial")) {
-            wd.setTemperature(cur.get("temp_f").getAsDouble());
-        } else {
-            wd.setTemperature(cur.get("temp_c").getAsDouble());
+    /**
+     * Non-blocking current weather lookup. The request is aborted if it takes longer than
+     * {@code timeout}, or if the returned future is cancelled.
+     */
+    public CompletableFuture<WeatherData> getCurrentWeatherAsync(String city, String units, Duration timeout) {
+        double[] point = LocationResolver.coordinates(city);
+        WeatherSnapshot near = nearbySnapshot(point, 0);
+        if (near != null) {
+            return CompletableFuture.completedFuture(withFallbackName(near.current().toWeatherData(Units.of(units)), city));
+        }
+        return compose(queryFor(city, timeout), q -> currentAsync(q, city, point, units, timeout));
+    }
+
+    private CompletableFuture<WeatherData> currentAsync(String q, String city, double[] point, String units, Duration timeout) {
+        String norm = ResponseCache.normalizeKey(q);
+        // a cached forecast payload already contains the current block
+        WeatherSnapshot snap = cache.getFirst("forecast:" + norm, "current:" + norm);
+        if (snap == null) snap = fromStore("forecast:" + norm);
+        if (snap == null) snap = fromStore("current:" + norm);
+        if (snap != null) {
+            return CompletableFuture.completedFuture(withFallbackName(snap.current().toWeatherData(Units.of(units)), city));
         }
+        String key = "current:" + norm;
+        String url = String.format("%s/current.json?key=%s&q=%s&aqi=no", baseUrl, apiKey, encode(q));
+        CompletableFuture<WeatherSnapshot> fetch = inFlight.execute(key, () -> {
+            CompletableFuture<WeatherSnapshot> f = chain(fetchParsedAsync(url, timeout, 0), p -> {
+                cache.put(key, p, p.current().timestamp());
+                persist(key, p);
+                return rememberNearby(point, p);
+            });
+            // a stored fallback is served as is and never cached or indexed as fresh
+            return orStored(f, 0, "forecast:" + norm, key);
+        });
+        return chain(fetch, p -> withFallbackName(p.current().toWeatherData(Units.of(units)), city));
+    }
+
+    public CompletableFuture<List<ForecastEntry>> getForecastAsync(String city, String units) {
+        return getForecastAsync(city, units, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Non-blocking hourly forecast lookup; see {@link #getCurrentWeatherAsync(String, String, Duration)}.
+     */
+    public CompletableFuture<List<ForecastEntry>> getForecastAsync(String city, String units, Duration timeout) {
+        return chain(getHourlyForecastAsync(city, units, DEFAULT_FORECAST_DAYS, timeout), HourlyForecast::asList);
+    }
+
+    /**
+     * Fetch the hourly forecast for the next {@code days} days (1 to {@value #MAX_FORECAST_DAYS}).
+     * The result decodes entries lazily, so long horizons only pay for the hours that are read.
+     */
+    public HourlyForecast getHourlyForecast(String city, String units, int days) throws IOException, InterruptedException {
+        return await(getHourlyForecastAsync(city, units, days, DEFAULT_REQUEST_TIMEOUT));
+    }
+
+    public CompletableFuture<HourlyForecast> getHourlyForecastAsync(String city, String units, int days, Duration timeout) {
+        int d = clampDays(days);
+        return chain(forecastAsync(city, d, timeout), p -> p.hourly(Units.of(units), d * 24));
+    }
+
+    public CompletableFuture<WeatherReport> getWeatherAsync(String city, String units) {
+        return getWeatherAsync(city, units, DEFAULT_FORECAST_DAYS, DEFAULT_REQUEST_TIMEOUT);
+    }
+
+    /**
+     * Non-blocking combined lookup; see {@link #getWeather(String, String)}.
+     */
+    public CompletableFuture<WeatherReport> getWeatherAsync(String city, String units, Duration timeout) {
+        return getWeatherAsync(city, units, DEFAULT_FORECAST_DAYS, timeout);
+    }
+
+    /**
+     * Non-blocking combined lookup with a forecast horizon of {@code days}; see {@link #getWeather(String, String)}.
+     */
+    public CompletableFuture<WeatherReport> getWeatherAsync(String city, String units, int days, Duration timeout) {
+        int d = clampDays(days);
+        Units u = Units.of(units);
+        return chain(forecastAsync(city, d, timeout),
+                p -> new WeatherReport(withFallbackName(p.current().toWeatherData(u), city), p.hourly(u, d * 24), p.offline()));
+    }
+
+    /**
+     * Blocking variant of {@link #getSnapshotAsync(String, int, Duration)}.
+     */
+    public WeatherSnapshot getSnapshot(String city, int days) throws IOException, InterruptedException {
+        return await(getSnapshotAsync(city, days, DEFAULT_REQUEST_TIMEOUT));
+    }
+
+    /**
+     * Non-blocking lookup returning the cached, unit-agnostic snapshot itself; callers project
+     * it into whatever units they display without another request.
+     */
+    public CompletableFuture<WeatherSnapshot> getSnapshotAsync(String city, int days, Duration timeout) {
+        return forecastAsync(city, clampDays(days), timeout);
+    }
+
+    /**
+     * Blocking combined lookup with a forecast horizon of {@code days}.
+     */
+    public WeatherReport getWeather(String city, String units, int days) throws IOException, InterruptedException {
+        return await(getWeatherAsync(city, units, days, DEFAULT_REQUEST_TIMEOUT));
+    }
+
+    private CompletableFuture<WeatherSnapshot> forecastAsync(String city, int days, Duration timeout) {
+        double[] point = LocationResolver.coordinates(city);
+        WeatherSnapshot near = nearbySnapshot(point, days);
+        if (near != null) return CompletableFuture.completedFuture(near);
+        return compose(queryFor(city, timeout), q -> forecastFor(q, point, days, timeout));
+    }
+
+    /**
+     * Nearest fresh snapshot with at least {@code days} of forecast for a coordinate query, or null.
+     */
+    private WeatherSnapshot nearbySnapshot(double[] point, int days) {
+        if (point == null) return null;
+        WeatherSnapshot s = nearby.nearest(point[0], point[1], nearbyRadiusKm, p -> p.forecastDays() >= days);
+        if (s != null) nearbyHits.incrementAndGet();
+        return s;
+    }
 
-        wd.setHumidity(cur.get("humidity").getAsInt());
-        // WeatherAPI gives wind_kph and wind_mph
-        if (units != null && units.equalsIgnoreCase("imperial")) {
-            wd.setWindSpeed(cur.get("wind_mph").getAsDouble());
+    // index a freshly fetched snapshot at the queried point, or at the provider's coordinates for
+    // the location, as of when it was fetched: WeatherAPI refreshes observations only every 15
+    // minutes or so, so they routinely arrive several minutes old. Observations already past the
+    // cache TTL are not indexed, and a current-only snapshot never shadows a forecast for the same point
+    private WeatherSnapshot rememberNearby(double[] point, WeatherSnapshot p) {
+        double lat, lon;
+        if (point != null) {
+            lat = point[0];
+            lon = point[1];
+        } else if (p.current().hasCoordinates()) {
+            lat = p.current().lat();
+            lon = p.current().lon();
         } else {
-            // convert kph to m/s for metric; original app expects m/s for metric
-            double kph = cur.get("wind_kph").getAsDouble();
-            wd.setWindSpeed(kph / 3.6);
+            return p;
         }
+        GeoIndex<WeatherSnapshot> index = nearby;
+        if (index.nearest(lat, lon, GeoIndex.SAME_POINT_KM, s -> s.forecastDays() > p.forecastDays()) == null) {
+            long now = System.currentTimeMillis();
+            if (cache.isFresh(p.current().timestamp(), now)) index.put(lat, lon, p, now);
+        }
+        return p;
+    }
+
+    /**
+     * Serve coordinate queries within {@code radiusKm} of an observation fetched less than
+     * {@code maxAge} ago (at most the cache TTL) from that observation; a radius of 0 disables
+     * reuse. Clears the index.
+     */
+    public void setNearbyReuse(double radiusKm, Duration maxAge) {
+        long maxAgeMillis = Math.min(maxAge.toMillis(), cacheTtl.toMillis());
+        this.nearby = new GeoIndex<>(Math.max(0.1, radiusKm), maxAgeMillis, MAX_NEARBY_ENTRIES);
+        this.nearbyRadiusKm = radiusKm;
+    }
+
+    /**
+     * Coordinate lookups answered from a nearby cached observation.
+     */
+    public long getNearbyHitCount() {
+        return nearbyHits.get();
+    }
+
+    private CompletableFuture<WeatherSnapshot> forecastFor(String q, double[] point, int days, Duration timeout) {
+        String norm = ResponseCache.normalizeKey(q);
+        String key = "forecast:" + norm;
+        WeatherSnapshot cached = cache.get(key);
+        if (cached == null) cached = fromStore(key);
+        // a cached longer horizon serves any shorter request
+        if (cached != null && cached.forecastDays() >= days) return CompletableFuture.completedFuture(cached);
+        String url = String.format("%s/forecast.json?key=%s&q=%s&days=%d&aqi=no&alerts=no", baseUrl, apiKey, encode(q), days);
+        return inFlight.execute("forecast:" + days + ":" + norm, () -> {
+            CompletableFuture<WeatherSnapshot> f = chain(fetchParsedAsync(url, timeout, days * 24), parsed -> {
+                WeatherSnapshot p = parsed.withForecastDays(days);
+                // the forecast payload carries a current block too; its last_updated_epoch drives the TTL
+                cache.put(key, p, p.current().timestamp());
+                persist(key, p);
+                return rememberNearby(point, p);
+            });
+            // a stored fallback is served as is and never cached or indexed as fresh
+            return orStored(f, days, key);
+        });
+    }
+
+    /**
+     * Stored snapshot for {@code key} if it is still within the cache TTL, promoted into the
+     * memory cache; otherwise null.
+     */
+    private WeatherSnapshot fromStore(String key) {
+        if (store == null) return null;
+        WeatherStore.Stored s = store.get(key);
+        if (s == null || !cache.isFresh(s.snapshot().current().timestamp(), s.storedAtMillis())) return null;
+        WeatherSnapshot p = s.snapshot();
+        cache.put(key, p, p.current().timestamp());
+        storeHits.incrementAndGet();
+        return p;
+    }
 
-        JsonObject cond = cur.getAsJsonObject("condition");
-        if (cond != null) {
-            wd.setDescription(cond.has("text") ? cond.get("text").getAsString() : "");
-            String icon = cond.has("icon") ? cond.get("icon").getAsString() : "";
-            // icons may start with //, make absolute URL
-            if (icon.startsWith("//")) icon = "https:" + icon;
-            wd.setIcon(icon);
+    private void persist(String key, WeatherSnapshot p) {
+        if (store == null) return;
+        try {
+            store.put(key, p);
+        } catch (IOException ex) {
+            // ignore; the snapshot is still cached in memory
         }
+    }
 
-        // timestamp: use current.last_updated_epoch when available
-        if (cur.has("last_updated_epoch")) {
-            wd.setTimestamp(cur.get("last_updated_epoch").getAsLong());
-        } else if (loc.has("localtime_epoch")) {
-            wd.setTimestamp(loc.get("localtime_epoch").getAsLong());
-        } else {
-            wd.setTimestamp(Instant.now().getEpochSecond());
+    /**
+     * {@code fetch}, except that a network failure or 5xx answer completes with the newest stored
+     * snapshot under one of {@code keys} holding at least {@code days} of forecast, if any, marked
+     * {@link WeatherSnapshot#offline()}.
+     */
+    private CompletableFuture<WeatherSnapshot> orStored(CompletableFuture<WeatherSnapshot> fetch, int days, String... keys) {
+        if (store == null) return fetch;
+        CompletableFuture<WeatherSnapshot> out = fetch.handle((p, ex) -> {
+            if (ex == null) return p;
+            Throwable cause = ex instanceof CompletionException && ex.getCause() != null ? ex.getCause() : ex;
+            WeatherSnapshot stored = isOffline(cause) ? newestStored(days, keys) : null;
+            if (stored == null) throw ex instanceof CompletionException ? (CompletionException) ex : new CompletionException(cause);
+            offlineHits.incrementAndGet();
+            return stored.asOffline();
+        });
+        out.whenComplete((r, ex) -> {
+            if (out.isCancelled()) fetch.cancel(true);
+        });
+        return out;
+    }
+
+    private WeatherSnapshot newestStored(int days, String... keys) {
+        WeatherStore.Stored best = null;
+        for (String k : keys) {
+            WeatherStore.Stored s = store.get(k);
+            if (s != null && s.snapshot().forecastDays() >= days && (best == null || s.storedAtMillis() > best.storedAtMillis())) {
+                best = s;
+            }
         }
+        return best != null ? best.snapshot() : null;
+    }
 
-        return wd;
+    private static boolean isOffline(Throwable cause) {
+        if (cause instanceof ApiStatusException) return ((ApiStatusException) cause).getStatus() >= 500;
+        return cause instanceof IOException;
     }
 
     /**
-     * Fetch short-term hourly forecast for the given city. Uses the forecast endpoint and collects hourly entries.
+     * The most recent snapshot held for {@code city} in memory or in the store, or null. It may
+     * be past the cache TTL, but never older than the store's maximum age
+     * ({@link WeatherStore#DEFAULT_MAX_AGE}). Never touches the network, so callers can paint it
+     * immediately and refresh afterwards; its current block's timestamp tells how old it is.
      */
-    public List<ForecastEntry> getForecast(String city, String units) throws IOException, InterruptedException {
-        String q = URLEncoder.encode(city, StandardCharsets.UTF_8);
-        // request 2 days to ensure we have several hourly entries
-        String url = String.format("https://api.weatherapi.com/v1/forecast.json?key=%s&q=%s&days=2&aqi=no&alerts=no", apiKey, q);
-
-        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).GET().build();
-        HttpResponse<String> resp = client.send(req, HttpResponse.BodyHandlers.ofString());
-        if (resp.statusCode() != 200) {
-            throw new IOException("API returned status " + resp.statusCode() + ": " + resp.body());
+    public WeatherSnapshot getLastKnown(String city) {
+        Location known = resolver != null ? resolver.cached(city) : null;
+        String norm = ResponseCache.normalizeKey(known != null ? known.query() : city);
+        // a startup probe, not a lookup: leave the hit rate alone
+        WeatherSnapshot snap = cache.peek("forecast:" + norm);
+        if (snap == null) snap = cache.peek("current:" + norm);
+        if (snap == null && store != null) snap = newestStored(0, "forecast:" + norm, "current:" + norm);
+        return snap;
+    }
+
+    /**
+     * Persistent snapshot store, or null when snapshots are kept in memory only.
+     */
+    public WeatherStore getStore() {
+        return store;
+    }
+
+    /**
+     * Close the snapshot store, releasing its file lock. Lookups afterwards still work but are
+     * no longer persisted.
+     */
+    public void shutdown() {
+        if (store == null) return;
+        try {
+            store.close();
+        } catch (IOException ignored) {
         }
+    }
+
+    /**
+     * Lookups answered from a stored snapshot still within the TTL, e.g. after a restart.
+     */
+    public long getStoreHitCount() {
+        return storeHits.get();
+    }
+
+    /**
+     * Lookups answered from a stored snapshot because the network or WeatherAPI was unavailable.
+     */
+    public long getOfflineHitCount() {
+        return offlineHits.get();
+    }
+
+    /**
+     * The {@code q} to send for {@code city}: its resolved location if known or resolvable,
+     * otherwise the text as typed; coordinates are sent rounded, without a search. Completes
+     * immediately when no search is needed.
+     */
+    private CompletableFuture<String> queryFor(String city, Duration timeout) {
+        if (resolver == null) return CompletableFuture.completedFuture(city);
+        if (LocationResolver.coordinates(city) != null) return CompletableFuture.completedFuture(LocationResolver.normalize(city));
+        Location known = resolver.cached(city);
+        if (known != null) return CompletableFuture.completedFuture(known.query());
+        return chain(resolver.resolveAsync(city, timeout), loc -> loc != null ? loc.query() : city);
+    }
+
+    /**
+     * Resolver used to canonicalize queries, or null if queries are sent as typed.
+     */
+    public LocationResolver getLocationResolver() {
+        return resolver;
+    }
+
+    private static int clampDays(int days) {
+        return Math.max(1, Math.min(MAX_FORECAST_DAYS, days));
+    }
+
+    /**
+     * Response cache shared by all lookups; exposes hit/miss counters.
+     */
+    public ResponseCache<?> getCache() {
+        return cache;
+    }
+
+    /**
+     * Seed the current-conditions cache entry for {@code city}, e.g. from a bulk response item.
+     */
+    void cacheCurrent(String city, WeatherSnapshot snapshot) {
+        Location known = resolver != null ? resolver.cached(city) : null;
+        String q = known != null ? known.query() : city;
+        String key = "current:" + ResponseCache.normalizeKey(q);
+        cache.put(key, snapshot, snapshot.current().timestamp());
+        persist(key, snapshot);
+    }
+
+    /**
+     * POST a WeatherAPI bulk request ({@code q=bulk}) for current conditions and return the raw payload.
+     * {@code locationsJson} is the {@code {"locations": [...]}} request body.
+     */
+    CompletableFuture<String> fetchBulkAsync(String locationsJson, Duration timeout) {
+        String url = String.format("%s/current.json?key=%s&q=bulk&aqi=no", baseUrl, apiKey);
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(timeout)
+                .header("Content-Type", "application/json")
+                .POST(HttpRequest.BodyPublishers.ofString(locationsJson))
+                .build();
+        return sendAsync(req);
+    }
+
+    /**
+     * Number of lookups that shared an identical request already in flight instead of issuing their own.
+     */
+    public long getCoalescedRequestCount() {
+        return inFlight.getCoalescedCount();
+    }
 
-        JsonObject obj = JsonParser.parseString(resp.body()).getAsJsonObject();
-        JsonObject forecast = obj.getAsJsonObject("forecast");
-        List<ForecastEntry> result = new ArrayList<>();
-        if (forecast != null && forecast.has("forecastday")) {
-            JsonArray days = forecast.getAsJsonArray("forecastday");
-            for (JsonElement dayElem : days) {
-                JsonObject dayObj = dayElem.getAsJsonObject();
-                JsonArray hours = dayObj.getAsJsonArray("hour");
-                for (JsonElement h : hours) {
-                    JsonObject he = h.getAsJsonObject();
-                    ForecastEntry fe = new ForecastEntry();
-                    fe.setTimestamp(he.get("time_epoch").getAsLong());
-                    if (units != null && units.equalsIgnoreCase("imperial")) {
-                        fe.setTemperature(he.get("temp_f").getAsDouble());
-                    } else {
-                        fe.setTemperature(he.get("temp_c").getAsDouble());
-                    }
-                    JsonObject cond = he.getAsJsonObject("condition");
-                    if (cond != null) {
-                        fe.setDescription(cond.has("text") ? cond.get("text").getAsString() : "");
-                        String icon = cond.has("icon") ? cond.get("icon").getAsString() : "";
-                        if (icon.startsWith("//")) icon = "https:" + icon;
-                        fe.setIcon(icon);
-                    }
-                    result.add(fe);
+    /**
+     * GET {@code url} and stream-parse the response body as it arrives, reading at most
+     * {@code maxHours} hourly forecast entries.
+     */
+    private CompletableFuture<WeatherSnapshot> fetchParsedAsync(String url, Duration timeout, int maxHours) {
+        HttpRequest req = HttpRequest.newBuilder(URI.create(url)).timeout(timeout).GET().build();
+        CompletableFuture<HttpResponse<InputStream>> exchange = client.sendAsync(req, HttpResponse.BodyHandlers.ofInputStream());
+        return chain(exchange, resp -> {
+            try (InputStream in = resp.body()) {
+                if (resp.statusCode() != 200) {
+                    String err = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+                    throw new ApiStatusException(resp.statusCode(), err);
                 }
+                return WeatherApiStreamParser.parse(in, maxHours);
+            } catch (IOException ex) {
+                throw new CompletionException(ex);
+            }
+        });
+    }
+
+    private CompletableFuture<String> sendAsync(HttpRequest req) {
+        CompletableFuture<HttpResponse<String>> exchange = client.sendAsync(req, HttpResponse.BodyHandlers.ofString());
+        return chain(exchange, resp -> {
+            if (resp.statusCode() != 200) {
+                throw new CompletionException(new ApiStatusException(resp.statusCode(), resp.body()));
             }
+            return resp.body();
+        });
+    }
+
+    /**
+     * Like {@code upstream.thenApply(fn)}, but cancelling the returned future also cancels
+     * {@code upstream}, so cancellation reaches the in-flight HTTP exchange.
+     */
+    static <T, R> CompletableFuture<R> chain(CompletableFuture<T> upstream, java.util.function.Function<T, R> fn) {
+        CompletableFuture<R> downstream = upstream.thenApply(fn);
+        downstream.whenComplete((r, ex) -> {
+            if (downstream.isCancelled()) upstream.cancel(true);
+        });
+        return downstream;
+    }
+
+    /**
+     * Like {@code upstream.thenCompose(fn)} with {@link #chain}'s cancellation; runs {@code fn}
+     * inline when {@code upstream} has already completed normally.
+     */
+    static <T, R> CompletableFuture<R> compose(CompletableFuture<T> upstream, java.util.function.Function<T, CompletableFuture<R>> fn) {
+        if (upstream.isDone() && !upstream.isCompletedExceptionally()) return fn.apply(upstream.join());
+        java.util.concurrent.atomic.AtomicReference<CompletableFuture<R>> inner = new java.util.concurrent.atomic.AtomicReference<>();
+        CompletableFuture<R> downstream = upstream.thenCompose(t -> {
+            CompletableFuture<R> f = fn.apply(t);
+            inner.set(f);
+            return f;
+        });
+        downstream.whenComplete((r, ex) -> {
+            if (!downstream.isCancelled()) return;
+            upstream.cancel(true);
+            CompletableFuture<R> f = inner.get();
+            if (f != null) f.cancel(true);
+        });
+        return downstream;
+    }
+
+    /**
+     * Wait for {@code f}, translating failures back into the checked exceptions of the blocking API.
+     */
+    static <T> T await(CompletableFuture<T> f) throws IOException, InterruptedException {
+        try {
+            return f.get();
+        } catch (InterruptedException ie) {
+            f.cancel(true);
+            throw ie;
+        } catch (CancellationException ce) {
+            throw new IOException("Request cancelled", ce);
+        } catch (ExecutionException ee) {
+            Throwable cause = ee.getCause();
+            if (cause instanceof IOException) throw (IOException) cause;
+            if (cause instanceof RuntimeException) throw (RuntimeException) cause;
+            throw new IOException(cause);
         }
+    }
+
+    private static String encode(String city) {
+        return URLEncoder.encode(city, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Non-200 answer from WeatherAPI.
+     */
+    static final class ApiStatusException extends IOException {
+        private static final long serialVersionUID = 1L;
+        private final int status;
 
-        return result;
+        ApiStatusException(int status, String body) {
+            super("API returned status " + status + ": " + body);
+            this.status = status;
+        }
+
+        int getStatus() {
+            return status;
+        }
+    }
+
+    private static WeatherData withFallbackName(WeatherData wd, String city) {
+        if (wd.getCityName() == null || wd.getCityName().isEmpty()) wd.setCityName(city);
+        return wd;
     }
 }
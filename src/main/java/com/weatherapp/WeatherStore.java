@@ -0,0 +1,519 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ConditionRegistry;
+import com.weatherapp.models.CurrentConditions;
+import com.weatherapp.models.ForecastSeries;
+import com.weatherapp.models.WeatherSnapshot;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.CRC32;
+
+/**
+ * Single-file persistent store of recent {@link WeatherSnapshot}s, so a restarted app or one
+ * without network can show the last results immediately.
+ * <p>
+ * The file is an 8-byte header followed by append-only records
+ * {@code [int length][short keyLength][key UTF-8][long storedAtMillis][snapshot][int crc32]} in
+ * little-endian order. A snapshot is written compactly: its conditions as a small table of
+ * (code, day, description, icon), then the current block, then the forecast hours column by
+ * column, so condition ids never leak across processes. The key index is rebuilt at open by
+ * walking the records; a torn or corrupt tail is truncated away. Snapshots are decoded only when
+ * asked for, straight from a {@link MappedByteBuffer}.
+ * <p>
+ * Entries older than {@code maxAge} are never returned. When live records exceed
+ * {@code maxBytes} the oldest are dropped, and the live records are rewritten in place once
+ * superseded or dropped records make up more than half of the file. A mapped file cannot be
+ * replaced or shrunk on every platform, so the rewrite ends in a zero-length end marker and the
+ * tail is truncated only where the platform allows it.
+ * <p>
+ * One process at a time may write: the writer holds a lock on a {@code .lock} sibling (locking
+ * the store file itself would block readers on some platforms). A store opened while another
+ * process holds the lock is read-only: it serves the records present when it was opened, checks
+ * each one against its checksum before decoding it, and ignores writes.
+ */
+public class WeatherStore implements Closeable {
+    private static final int MAGIC = 0x31545357; // "WST1" in little-endian
+    private static final int VERSION = 1;
+    private static final int HEADER_BYTES = 8;
+    private static final int MAX_KEY_BYTES = 1024;
+    private static final int MAX_RECORD_BYTES = 4 * 1024 * 1024;
+    /** Dead space tolerated before compaction is considered. */
+    private static final long COMPACT_MIN_DEAD_BYTES = 64 * 1024;
+    public static final long DEFAULT_MAX_BYTES = 4L * 1024 * 1024;
+    public static final Duration DEFAULT_MAX_AGE = Duration.ofHours(24);
+
+    /** Stores open in this process; a second writer on the same file would corrupt it. */
+    private static final Set<Path> OPEN = ConcurrentHashMap.newKeySet();
+
+    private final Path file;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private final Clock clock;
+    private FileChannel channel;
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+    // insertion-ordered, and re-inserted on every put, so iteration runs oldest first
+    private final LinkedHashMap<String, Slot> index = new LinkedHashMap<>();
+    private MappedByteBuffer map;
+    private long size;
+    private long liveBytes;
+    private long deadBytes;
+    private long compactions;
+    private final AtomicLong evictions = new AtomicLong();
+
+    public WeatherStore(Path file) throws IOException {
+        this(file, DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE, Clock.systemUTC());
+    }
+
+    /**
+     * Open or create the store at {@code file}.
+     *
+     * @throws IOException if the file cannot be opened or is already open in this process
+     */
+    public WeatherStore(Path file, long maxBytes, Duration maxAge, Clock clock) throws IOException {
+        this.file = file.toAbsolutePath().normalize();
+        this.maxBytes = Math.max(4096, maxBytes);
+        this.maxAgeMillis = maxAge.toMillis();
+        this.clock = clock;
+        if (!OPEN.add(this.file)) throw new IOException("Weather store already open: " + this.file);
+        try {
+            if (this.file.getParent() != null) Files.createDirectories(this.file.getParent());
+            this.lockChannel = FileChannel.open(this.file.resolveSibling(this.file.getFileName() + ".lock"),
+                    StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+            this.lock = tryLock(lockChannel);
+            try {
+                this.channel = lock != null ? open(this.file) : FileChannel.open(this.file, StandardOpenOption.READ);
+                try {
+                    load();
+                    maybeCompact();
+                } catch (IOException ex) {
+                    channel.close();
+                    throw ex;
+                }
+            } catch (IOException | RuntimeException ex) {
+                lockChannel.close(); // releases the lock
+                throw ex;
+            }
+        } catch (IOException | RuntimeException ex) {
+            OPEN.remove(this.file);
+            throw ex;
+        }
+    }
+
+    // the lock, or null if another process holds it (or locking is unsupported)
+    private static FileLock tryLock(FileChannel ch) {
+        try {
+            return ch.tryLock();
+        } catch (IOException | OverlappingFileLockException ex) {
+            return null;
+        }
+    }
+
+    private static FileChannel open(Path file) throws IOException {
+        return FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    }
+
+    private void load() throws IOException {
+        long fileSize = channel.size();
+        if (fileSize < HEADER_BYTES || !headerMatches()) {
+            // new, foreign or older-format file: start empty
+            if (isReadOnly()) {
+                size = 0;
+                return;
+            }
+            resetToHeader();
+            return;
+        }
+        if (fileSize > Integer.MAX_VALUE) fileSize = Integer.MAX_VALUE;
+        MappedByteBuffer m = channel.map(FileChannel.MapMode.READ_ONLY, 0, fileSize);
+        m.order(ByteOrder.LITTLE_ENDIAN);
+        long now = clock.millis();
+        int pos = HEADER_BYTES;
+        while (pos + 4 <= fileSize) {
+            int len = m.getInt(pos);
+            if (len < 14 || len > MAX_RECORD_BYTES || pos + 8L + len > fileSize) break;
+            int body = pos + 4;
+            if (m.getInt(body + len) != crc(m, body, len)) break;
+            int keyLen = m.getShort(body) & 0xffff;
+            if (keyLen == 0 || keyLen > MAX_KEY_BYTES || 2 + keyLen + 8 > len) break;
+            byte[] keyBytes = new byte[keyLen];
+            m.get(body + 2, keyBytes);
+            String key = new String(keyBytes, StandardCharsets.UTF_8);
+            long storedAt = m.getLong(body + 2 + keyLen);
+            int recordBytes = len + 8;
+            Slot old = index.remove(key);
+            if (old != null) drop(old);
+            if (now - storedAt > maxAgeMillis) {
+                deadBytes += recordBytes;
+            } else {
+                index.put(key, new Slot(body + 2 + keyLen + 8, len - 2 - keyLen - 8, storedAt, recordBytes));
+                liveBytes += recordBytes;
+            }
+            pos = body + len + 4;
+        }
+        // end marker, or a torn or corrupt tail; in a read-only store it may also be the writer's
+        // append in progress
+        if (!isReadOnly()) trimTail(pos);
+        size = pos;
+        map = null;
+    }
+
+    // drop everything from end on; where a mapped file cannot shrink, fence it off with an end marker
+    private void trimTail(long end) throws IOException {
+        if (channel.size() <= end) return;
+        try {
+            channel.truncate(end);
+        } catch (IOException ex) {
+            ByteBuffer marker = ByteBuffer.allocate(4);
+            while (marker.hasRemaining()) channel.write(marker, end + marker.position());
+        }
+    }
+
+    private boolean headerMatches() throws IOException {
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        channel.read(b, 0);
+        b.flip();
+        return b.remaining() == HEADER_BYTES && b.getInt() == MAGIC && b.getInt() == VERSION;
+    }
+
+    private void resetToHeader() throws IOException {
+        channel.truncate(0);
+        ByteBuffer b = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(MAGIC).putInt(VERSION).flip();
+        channel.write(b, 0);
+        index.clear();
+        size = HEADER_BYTES;
+        liveBytes = 0;
+        deadBytes = 0;
+        map = null;
+    }
+
+    /**
+     * The snapshot stored under {@code key} and when it was stored, or null if there is none
+     * younger than the maximum age or it cannot be decoded.
+     */
+    public synchronized Stored get(String key) {
+        Slot s = index.get(key);
+        if (s == null) return null;
+        if (clock.millis() - s.storedAt > maxAgeMillis) {
+            index.remove(key);
+            drop(s);
+            return null;
+        }
+        try {
+            ByteBuffer b;
+            if (isReadOnly()) {
+                b = reread(key, s);
+            } else {
+                if (map == null || map.capacity() < s.offset + s.length) {
+                    map = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+                    map.order(ByteOrder.LITTLE_ENDIAN);
+                }
+                b = map.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+                b.position(s.offset).limit(s.offset + s.length);
+            }
+            return new Stored(decode(b), s.storedAt);
+        } catch (IOException | RuntimeException ex) {
+            // unreadable record: forget it rather than fail every lookup
+            index.remove(key);
+            drop(s);
+            return null;
+        }
+    }
+
+    // the writer may have compacted or truncated the file since it was indexed, so a read-only
+    // store copies the record out and checks that it is still the one for key
+    private ByteBuffer reread(String key, Slot s) throws IOException {
+        long start = s.offset + s.length + 4L - s.recordBytes;
+        ByteBuffer r = ByteBuffer.allocate(s.recordBytes).order(ByteOrder.LITTLE_ENDIAN);
+        while (r.hasRemaining()) {
+            if (channel.read(r, start + r.position()) < 0) throw new IOException("Record truncated");
+        }
+        int len = s.recordBytes - 8;
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (r.getInt(0) != len || r.getInt(4 + len) != crc(r, 4, len) || (r.getShort(4) & 0xffff) != keyBytes.length
+                || !r.slice(6, keyBytes.length).equals(ByteBuffer.wrap(keyBytes))) {
+            throw new IOException("Record moved");
+        }
+        return r.position(4 + len - s.length).limit(4 + len);
+    }
+
+    /**
+     * Append {@code snapshot} under {@code key}, superseding any earlier record for it.
+     */
+    public synchronized void put(String key, WeatherSnapshot snapshot) throws IOException {
+        if (isReadOnly()) throw new IOException("Weather store is read-only: " + file);
+        byte[] keyBytes = key.getBytes(StandardCharsets.UTF_8);
+        if (keyBytes.length == 0 || keyBytes.length > MAX_KEY_BYTES) throw new IOException("Bad key length");
+        byte[] payload = encode(snapshot);
+        int len = 2 + keyBytes.length + 8 + payload.length;
+        if (len > MAX_RECORD_BYTES) throw new IOException("Snapshot too large");
+        long now = clock.millis();
+        // followed by an end marker, since stale records may lie past the end after a compaction
+        ByteBuffer rec = ByteBuffer.allocate(len + 12).order(ByteOrder.LITTLE_ENDIAN);
+        rec.putInt(len).putShort((short) keyBytes.length).put(keyBytes).putLong(now).put(payload);
+        rec.putInt(crc(rec, 4, len)).putInt(0).flip();
+        long pos = size;
+        while (rec.hasRemaining()) pos += channel.write(rec, pos);
+        int body = (int) size + 4;
+        size = pos - 4;
+        Slot old = index.remove(key);
+        if (old != null) drop(old);
+        index.put(key, new Slot(body + 2 + keyBytes.length + 8, payload.length, now, len + 8));
+        liveBytes += len + 8;
+        if (liveBytes > maxBytes) evictOldest();
+        maybeCompact();
+    }
+
+    // drop the oldest records until a quarter of the cap is free again, then rewrite
+    private void evictOldest() throws IOException {
+        List<String> victims = new ArrayList<>();
+        long live = liveBytes;
+        for (Map.Entry<String, Slot> e : index.entrySet()) {
+            if (live <= maxBytes * 3 / 4) break;
+            victims.add(e.getKey());
+            live -= e.getValue().recordBytes;
+        }
+        for (String k : victims) drop(index.remove(k));
+        evictions.addAndGet(victims.size());
+        compact();
+    }
+
+    private void drop(Slot s) {
+        liveBytes -= s.recordBytes;
+        deadBytes += s.recordBytes;
+    }
+
+    private void maybeCompact() throws IOException {
+        if (isReadOnly()) return;
+        if (deadBytes >= COMPACT_MIN_DEAD_BYTES && deadBytes * 2 > size) compact();
+    }
+
+    /**
+     * Rewrite the live records at the start of the file, in place, and drop the rest. Live records
+     * are bounded by the byte cap, so they are gathered in memory first.
+     */
+    public synchronized void compact() throws IOException {
+        if (deadBytes == 0 || isReadOnly()) return;
+        List<Slot> live = new ArrayList<>(index.values());
+        // keep file order, which is also oldest first
+        live.sort((a, b) -> Integer.compare(a.offset, b.offset));
+        ByteBuffer out = ByteBuffer.allocate(Math.toIntExact(liveBytes) + 4);
+        for (Slot s : live) {
+            // file offset minus buffer offset of this record
+            long shift = s.offset + s.length + 4L - s.recordBytes - out.position();
+            out.limit(out.position() + s.recordBytes);
+            while (out.hasRemaining()) {
+                if (channel.read(out, shift + out.position()) < 0) throw new IOException("Store file shrank");
+            }
+            out.limit(out.capacity());
+        }
+        out.putInt(0).flip(); // end marker; the stale tail behind it is trimmed by load()
+        long pos = HEADER_BYTES;
+        while (out.hasRemaining()) pos += channel.write(out, pos);
+        channel.force(false);
+        compactions++;
+        index.clear();
+        liveBytes = 0;
+        deadBytes = 0;
+        map = null;
+        load();
+    }
+
+    private static int crc(ByteBuffer buf, int from, int len) {
+        CRC32 crc = new CRC32();
+        ByteBuffer b = buf.duplicate();
+        b.position(from).limit(from + len);
+        crc.update(b);
+        return (int) crc.getValue();
+    }
+
+    static byte[] encode(WeatherSnapshot snapshot) {
+        ConditionRegistry shared = ConditionRegistry.shared();
+        ForecastSeries f = snapshot.forecast();
+        ConditionRegistry fr = f != null ? f.registry() : shared;
+        int hours = f != null ? f.size() : 0;
+        // process-local condition ids become indices into a per-record table
+        Map<ConditionRegistry.Condition, Short> table = new LinkedHashMap<>();
+        CurrentConditions c = snapshot.current();
+        short currentCond = c.condition() >= 0 ? local(table, shared.get(c.condition())) : -1;
+        short[] hourConds = new short[hours];
+        for (int i = 0; i < hours; i++) hourConds[i] = local(table, fr.get(f.getCondition(i)));
+
+        List<byte[]> strings = new ArrayList<>();
+        strings.add(utf8(c.cityName()));
+        strings.add(utf8(c.country()));
+        for (ConditionRegistry.Condition cond : table.keySet()) {
+            strings.add(utf8(cond.getDescription()));
+            strings.add(utf8(cond.getIcon()));
+        }
+        int bytes = 4 + 2 + table.size() * 5 + 8 + 4 + 8 + 2 + 8 + 8 + 8 + 4 + hours * 14;
+        for (byte[] s : strings) bytes += 2 + s.length;
+
+        ByteBuffer b = ByteBuffer.allocate(bytes).order(ByteOrder.LITTLE_ENDIAN);
+        b.putInt(snapshot.forecastDays());
+        b.putShort((short) table.size());
+        int si = 2;
+        for (ConditionRegistry.Condition cond : table.keySet()) {
+            b.putInt(cond.getCode()).put((byte) (cond.isDay() ? 1 : 0));
+            putString(b, strings.get(si++));
+            putString(b, strings.get(si++));
+        }
+        putString(b, strings.get(0));
+        putString(b, strings.get(1));
+        b.putDouble(c.temperatureC()).putInt(c.humidity()).putDouble(c.windSpeedMs()).putShort(currentCond);
+        b.putLong(c.timestamp()).putDouble(c.lat()).putDouble(c.lon());
+        b.putInt(hours);
+        for (int i = 0; i < hours; i++) b.putLong(f.getTimestamp(i));
+        for (int i = 0; i < hours; i++) b.putFloat(f.getTemperatureC(i));
+        for (int i = 0; i < hours; i++) b.putShort(hourConds[i]);
+        return b.array();
+    }
+
+    static WeatherSnapshot decode(ByteBuffer b) throws IOException {
+        try {
+            ConditionRegistry shared = ConditionRegistry.shared();
+            int days = b.getInt();
+            int n = b.getShort() & 0xffff;
+            short[] ids = new short[n];
+            for (int i = 0; i < n; i++) {
+                int code = b.getInt();
+                boolean day = b.get() != 0;
+                String description = getString(b);
+                String icon = getString(b);
+                ids[i] = shared.intern(code, day, description, icon);
+            }
+            String city = getString(b);
+            String country = getString(b);
+            double tempC = b.getDouble();
+            int humidity = b.getInt();
+            double windMs = b.getDouble();
+            short cond = b.getShort();
+            long timestamp = b.getLong();
+            double lat = b.getDouble();
+            double lon = b.getDouble();
+            int hours = b.getInt();
+            if (hours < 0 || hours * 14L > b.remaining()) throw new IOException("Bad hour count");
+            long[] ts = new long[hours];
+            for (int i = 0; i < hours; i++) ts[i] = b.getLong();
+            float[] temps = new float[hours];
+            for (int i = 0; i < hours; i++) temps[i] = b.getFloat();
+            ForecastSeries.Builder fb = new ForecastSeries.Builder(hours, shared);
+            for (int i = 0; i < hours; i++) fb.add(ts[i], temps[i], ids[b.getShort()]);
+            CurrentConditions current = new CurrentConditions(city, country, tempC, humidity, windMs,
+                    cond >= 0 ? ids[cond] : -1, timestamp, lat, lon);
+            return new WeatherSnapshot(current, fb.build(), days);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException ex) {
+            throw new IOException("Malformed snapshot", ex);
+        }
+    }
+
+    private static short local(Map<ConditionRegistry.Condition, Short> table, ConditionRegistry.Condition c) {
+        return table.computeIfAbsent(c, k -> (short) table.size());
+    }
+
+    private static byte[] utf8(String s) {
+        byte[] b = (s != null ? s : "").getBytes(StandardCharsets.UTF_8);
+        if (b.length <= 0xffff) return b;
+        return new String(b, 0, 0xffff, StandardCharsets.UTF_8).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static void putString(ByteBuffer b, byte[] s) {
+        b.putShort((short) s.length).put(s);
+    }
+
+    private static String getString(ByteBuffer b) {
+        byte[] s = new byte[b.getShort() & 0xffff];
+        b.get(s);
+        return new String(s, StandardCharsets.UTF_8);
+    }
+
+    public synchronized int size() {
+        return index.size();
+    }
+
+    /**
+     * Bytes in the store file, including superseded records not yet compacted.
+     */
+    public synchronized long getFileBytes() {
+        return size;
+    }
+
+    public synchronized long getCompactionCount() {
+        return compactions;
+    }
+
+    /**
+     * Records dropped to stay under the byte cap.
+     */
+    public long getEvictionCount() {
+        return evictions.get();
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    /**
+     * Whether another process held the write lock when this store was opened.
+     */
+    public boolean isReadOnly() {
+        return lock == null;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        map = null;
+        try {
+            channel.close();
+        } finally {
+            try {
+                lockChannel.close(); // releases the lock
+            } finally {
+                OPEN.remove(file);
+            }
+        }
+    }
+
+    /**
+     * A stored snapshot and the wall-clock time it was written.
+     */
+    public record Stored(WeatherSnapshot snapshot, long storedAtMillis) {
+    }
+
+    private static final class Slot {
+        final int offset;       // start of the snapshot bytes
+        final int length;       // snapshot bytes
+        final long storedAt;
+        final int recordBytes;  // whole record including length and crc
+
+        Slot(int offset, int length, long storedAt, int recordBytes) {
+            this.offset = offset;
+            this.length = length;
+            this.storedAt = storedAt;
+            this.recordBytes = recordBytes;
+        }
+    }
+}
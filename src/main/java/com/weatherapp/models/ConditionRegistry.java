@@ -0,0 +1,287 @@
+package com.weatherapp.models;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Registry of weather conditions keyed by WeatherAPI's {@code condition.code} and day/night flag.
+ * <p>
+ * Each distinct condition gets one {@link Condition} holding canonical description and icon URL
+ * instances plus a small integer id, so models can store a {@code short} per hour instead of two
+ * strings and every parsed payload shares the same few dozen string objects. The registry knows
+ * WeatherAPI's published condition table (code, texts and icon number); conditions seen with
+ * unknown codes, or with texts that differ from the first one seen for a code (e.g. another
+ * language), get their own slot keyed by text and icon. Those slots live for the whole process,
+ * so at most {@code maxTextEntries} are created; past that, such a condition maps to the slot
+ * first seen for its code, or to a generic "Unknown" condition.
+ */
+public final class ConditionRegistry {
+    private static final ConditionRegistry SHARED = new ConditionRegistry();
+    private static final String ICON_BASE = "https://cdn.weatherapi.com/weather/64x64/";
+
+    /** code, day text, night text, icon number — from WeatherAPI's conditions list. */
+    private static final Object[][] KNOWN = {
+            {1000, "Sunny", "Clear", 113},
+            {1003, "Partly cloudy", "Partly cloudy", 116},
+            {1006, "Cloudy", "Cloudy", 119},
+            {1009, "Overcast", "Overcast", 122},
+            {1030, "Mist", "Mist", 143},
+            {1063, "Patchy rain possible", "Patchy rain possible", 176},
+            {1066, "Patchy snow possible", "Patchy snow possible", 179},
+            {1069, "Patchy sleet possible", "Patchy sleet possible", 182},
+            {1072, "Patchy freezing drizzle possible", "Patchy freezing drizzle possible", 185},
+            {1087, "Thundery outbreaks possible", "Thundery outbreaks possible", 200},
+            {1114, "Blowing snow", "Blowing snow", 227},
+            {1117, "Blizzard", "Blizzard", 230},
+            {1135, "Fog", "Fog", 248},
+            {1147, "Freezing fog", "Freezing fog", 260},
+            {1150, "Patchy light drizzle", "Patchy light drizzle", 263},
+            {1153, "Light drizzle", "Light drizzle", 266},
+            {1168, "Freezing drizzle", "Freezing drizzle", 281},
+            {1171, "Heavy freezing drizzle", "Heavy freezing drizzle", 284},
+            {1180, "Patchy light rain", "Patchy light rain", 293},
+            {1183, "Light rain", "Light rain", 296},
+            {1186, "Moderate rain at times", "Moderate rain at times", 299},
+            {1189, "Moderate rain", "Moderate rain", 302},
+            {1192, "Heavy rain at times", "Heavy rain at times", 305},
+            {1195, "Heavy rain", "Heavy rain", 308},
+            {1198, "Light freezing rain", "Light freezing rain", 311},
+            {1201, "Moderate or heavy freezing rain", "Moderate or heavy freezing rain", 314},
+            {1204, "Light sleet", "Light sleet", 317},
+            {1207, "Moderate or heavy sleet", "Moderate or heavy sleet", 320},
+            {1210, "Patchy light snow", "Patchy light snow", 323},
+            {1213, "Light snow", "Light snow", 326},
+            {1216, "Patchy moderate snow", "Patchy moderate snow", 329},
+            {1219, "Moderate snow", "Moderate snow", 332},
+            {1222, "Patchy heavy snow", "Patchy heavy snow", 335},
+            {1225, "Heavy snow", "Heavy snow", 338},
+            {1237, "Ice pellets", "Ice pellets", 350},
+            {1240, "Light rain shower", "Light rain shower", 353},
+            {1243, "Moderate or heavy rain shower", "Moderate or heavy rain shower", 356},
+            {1246, "Torrential rain shower", "Torrential rain shower", 359},
+            {1249, "Light sleet showers", "Light sleet showers", 362},
+            {1252, "Moderate or heavy sleet showers", "Moderate or heavy sleet showers", 365},
+            {1255, "Light snow showers", "Light snow showers", 368},
+            {1258, "Moderate or heavy snow showers", "Moderate or heavy snow showers", 371},
+            {1261, "Light showers of ice pellets", "Light showers of ice pellets", 374},
+            {1264, "Moderate or heavy showers of ice pellets", "Moderate or heavy showers of ice pellets", 377},
+            {1273, "Patchy light rain with thunder", "Patchy light rain with thunder", 386},
+            {1276, "Moderate or heavy rain with thunder", "Moderate or heavy rain with thunder", 389},
+            {1279, "Patchy light snow with thunder", "Patchy light snow with thunder", 392},
+            {1282, "Moderate or heavy snow with thunder", "Moderate or heavy snow with thunder", 395},
+    };
+    /** Text-keyed slots kept by default; far more than WeatherAPI's languages times conditions. */
+    public static final int DEFAULT_MAX_TEXT_ENTRIES = 4096;
+    static final int MIN_CODE = 1000;
+    static final int MAX_CODE = 1282;
+
+    private static final int[] ICON_BY_CODE = new int[MAX_CODE - MIN_CODE + 1];
+    private static final String[][] TEXT_BY_CODE = new String[MAX_CODE - MIN_CODE + 1][];
+
+    static {
+        for (Object[] k : KNOWN) {
+            int idx = (Integer) k[0] - MIN_CODE;
+            ICON_BY_CODE[idx] = (Integer) k[3];
+            TEXT_BY_CODE[idx] = new String[]{(String) k[1], (String) k[2]};
+        }
+    }
+
+    // slot ids per (code, day) for known-range codes; -1 = not yet seen
+    private final short[] byCode = new short[(MAX_CODE - MIN_CODE + 1) * 2];
+    private final Map<String, Short> byText = new ConcurrentHashMap<>();
+    private final int maxTextEntries;
+    private short unknown = -1;
+    private volatile Condition[] slots = new Condition[0];
+
+    public ConditionRegistry() {
+        this(DEFAULT_MAX_TEXT_ENTRIES);
+    }
+
+    public ConditionRegistry(int maxTextEntries) {
+        this.maxTextEntries = Math.max(0, Math.min(maxTextEntries, Short.MAX_VALUE - byCode.length - 1));
+        Arrays.fill(byCode, (short) -1);
+    }
+
+    /**
+     * Process-wide registry used by the parsers and the default adapters.
+     */
+    public static ConditionRegistry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Id for a condition as it appears in a payload. {@code rawIcon} may be protocol-relative
+     * ({@code //cdn...}); the canonical icon is always absolute. Pass {@code code <= 0} when unknown.
+     */
+    public short intern(int code, boolean isDay, String description, String rawIcon) {
+        String d = description != null ? description : "";
+        String i = rawIcon != null ? rawIcon : "";
+        if (code >= MIN_CODE && code <= MAX_CODE) {
+            int idx = (code - MIN_CODE) * 2 + (isDay ? 1 : 0);
+            short id = byCode[idx];
+            Condition[] s = slots;
+            if (id >= 0 && id < s.length && s[id].matches(d, i)) return id;
+            synchronized (this) {
+                id = byCode[idx];
+                if (id < 0) {
+                    id = add(code, isDay, d, i);
+                    byCode[idx] = id;
+                    return id;
+                }
+                if (slots[id].matches(d, i)) return id;
+            }
+        }
+        return internText(code, isDay, d, i);
+    }
+
+    /**
+     * Id for a condition known only by its description and icon URL (e.g. from a {@link ForecastEntry}).
+     */
+    public short intern(String description, String icon) {
+        String i = icon != null ? icon : "";
+        return internText(0, !i.contains("/night/"), description != null ? description : "", i);
+    }
+
+    private short internText(int code, boolean isDay, String description, String rawIcon) {
+        String key = description + '\n' + absolute(rawIcon);
+        Short id = byText.get(key);
+        if (id != null) return id;
+        synchronized (this) {
+            id = byText.get(key);
+            if (id != null) return id;
+            if (byText.size() >= maxTextEntries) return fallback(code, isDay);
+            short newId = add(code, isDay, description, rawIcon);
+            byText.put(key, newId);
+            return newId;
+        }
+    }
+
+    // caller holds the lock; the slot first seen for the code, else the generic unknown condition
+    private short fallback(int code, boolean isDay) {
+        if (code >= MIN_CODE && code <= MAX_CODE) {
+            short id = byCode[(code - MIN_CODE) * 2 + (isDay ? 1 : 0)];
+            if (id >= 0) return id;
+        }
+        if (unknown < 0) unknown = add(0, true, "Unknown", "");
+        return unknown;
+    }
+
+    // caller holds the lock; the text-keyed cap keeps ids within a short
+    private short add(int code, boolean isDay, String description, String rawIcon) {
+        Condition[] s = slots;
+        short id = (short) s.length;
+        String canonicalText = description;
+        String[] known = code >= MIN_CODE && code <= MAX_CODE ? TEXT_BY_CODE[code - MIN_CODE] : null;
+        if (known != null && known[isDay ? 0 : 1].equals(description)) canonicalText = known[isDay ? 0 : 1];
+        Condition c = new Condition(id, code, isDay, canonicalText, rawIcon, absolute(rawIcon), iconNumber(code, rawIcon));
+        Condition[] grown = Arrays.copyOf(s, s.length + 1);
+        grown[id] = c;
+        slots = grown;
+        return id;
+    }
+
+    public Condition get(short id) {
+        return slots[id];
+    }
+
+    public String description(short id) {
+        return slots[id].getDescription();
+    }
+
+    public String icon(short id) {
+        return slots[id].getIcon();
+    }
+
+    public int size() {
+        return slots.length;
+    }
+
+    /**
+     * WeatherAPI icon number (e.g. 116) for a known condition code, or 0.
+     */
+    public static int iconNumberForCode(int code) {
+        return code >= MIN_CODE && code <= MAX_CODE ? ICON_BY_CODE[code - MIN_CODE] : 0;
+    }
+
+    /**
+     * Canonical CDN URL of the 64x64 icon for {@code iconNumber}.
+     */
+    public static String iconUrl(int iconNumber, boolean isDay) {
+        return ICON_BASE + (isDay ? "day/" : "night/") + iconNumber + ".png";
+    }
+
+    private static int iconNumber(int code, String icon) {
+        int n = iconNumberForCode(code);
+        if (n != 0) return n;
+        // fall back to the file name of the icon URL (".../day/116.png")
+        int slash = icon.lastIndexOf('/');
+        int dot = icon.lastIndexOf('.');
+        if (slash >= 0 && dot > slash) {
+            try {
+                return Integer.parseInt(icon.substring(slash + 1, dot));
+            } catch (NumberFormatException ignored) {
+            }
+        }
+        return 0;
+    }
+
+    private static String absolute(String icon) {
+        // icons may start with //, make absolute URL
+        return icon.startsWith("//") ? "https:" + icon : icon;
+    }
+
+    /**
+     * One interned condition. Instances are immutable and shared.
+     */
+    public static final class Condition {
+        private final short id;
+        private final int code;
+        private final boolean day;
+        private final String description;
+        private final String rawIcon;
+        private final String icon;
+        private final int iconNumber;
+
+        Condition(short id, int code, boolean day, String description, String rawIcon, String icon, int iconNumber) {
+            this.id = id;
+            this.code = code;
+            this.day = day;
+            this.description = description;
+            this.rawIcon = rawIcon;
+            this.icon = icon;
+            this.iconNumber = iconNumber;
+        }
+
+        boolean matches(String description, String rawIcon) {
+            return this.description.equals(description) && (this.rawIcon.equals(rawIcon) || this.icon.equals(rawIcon));
+        }
+
+        public short getId() {
+            return id;
+        }
+
+        /** WeatherAPI condition code, or 0 when unknown. */
+        public int getCode() {
+            return code;
+        }
+
+        public boolean isDay() {
+            return day;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+
+        /** Absolute icon URL. */
+        public String getIcon() {
+            return icon;
+        }
+
+        /** WeatherAPI icon number (the file name of the icon), or 0 when unknown. */
+        public int getIconNumber() {
+            return iconNumber;
+        }
+    }
+}
@@ -0,0 +1,63 @@
+package com.weatherapp.models;
+
+/**
+ * Immutable, unit-agnostic current observation.
+ * <p>
+ * Values are stored once in canonical units (°C, m/s) and projected with {@link #temperature(Units)}
+ * and {@link #windSpeed(Units)} on read, so one instance can be shared across threads, caches and
+ * unit settings. {@code condition} is an id in {@link ConditionRegistry#shared()}, or -1 if none.
+ * {@code lat}/{@code lon} are the provider's coordinates for the location, NaN when unknown.
+ */
+public record CurrentConditions(String cityName, String country, double temperatureC, int humidity,
+                                double windSpeedMs, short condition, long timestamp, double lat, double lon) {
+
+    public CurrentConditions(String cityName, String country, double temperatureC, int humidity,
+                             double windSpeedMs, short condition, long timestamp) {
+        this(cityName, country, temperatureC, humidity, windSpeedMs, condition, timestamp, Double.NaN, Double.NaN);
+    }
+
+    public boolean hasCoordinates() {
+        return !Double.isNaN(lat) && !Double.isNaN(lon);
+    }
+
+    public double temperature(Units units) {
+        return units.temperature(temperatureC);
+    }
+
+    public double windSpeed(Units units) {
+        return units.windSpeed(windSpeedMs);
+    }
+
+    public String description() {
+        return condition >= 0 ? ConditionRegistry.shared().description(condition) : "";
+    }
+
+    public String icon() {
+        return condition >= 0 ? ConditionRegistry.shared().icon(condition) : "";
+    }
+
+    public int conditionCode() {
+        return condition >= 0 ? ConditionRegistry.shared().get(condition).getCode() : 0;
+    }
+
+    public CurrentConditions withCityName(String name) {
+        return new CurrentConditions(name, country, temperatureC, humidity, windSpeedMs, condition, timestamp, lat, lon);
+    }
+
+    /**
+     * Adapter to the mutable bean used by the UI.
+     */
+    public WeatherData toWeatherData(Units units) {
+        WeatherData wd = new WeatherData();
+        wd.setCityName(cityName);
+        wd.setCountry(country);
+        wd.setTemperature(temperature(units));
+        wd.setHumidity(humidity);
+        wd.setWindSpeed(windSpeed(units));
+        wd.setDescription(description());
+        wd.setIcon(icon());
+        wd.setConditionCode(conditionCode());
+        wd.setTimestamp(timestamp);
+        return wd;
+    }
+}
@@ -8,6 +8,7 @@ public class ForecastEntry {
     private double temperature;
     private String description;
     private String icon;
+    private int conditionCode;
 
     public long getTimestamp() {
         return timestamp;
@@ -40,4 +41,15 @@ public class ForecastEntry {
     public void setIcon(String icon) {
         this.icon = icon;
     }
+
+    /**
+     * WeatherAPI condition code (see {@link ConditionRegistry}), or 0 when unknown.
+     */
+    public int getConditionCode() {
+        return conditionCode;
+    }
+
+    public void setConditionCode(int conditionCode) {
+        this.conditionCode = conditionCode;
+    }
 }
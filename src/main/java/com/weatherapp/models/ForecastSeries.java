@@ -0,0 +1,202 @@
+package com.weatherapp.models;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Columnar hourly forecast: parallel primitive arrays instead of one {@link ForecastEntry} per hour.
+ * <p>
+ * Timestamps are epoch seconds in ascending order, temperatures are stored once in °C as
+ * {@code float}, and each hour's condition (description, icon URL, day/night) is a {@code short}
+ * id into a shared {@link ConditionRegistry}. An hour costs 14 bytes regardless of how many cities are held.
+ * Instances are immutable.
+ */
+public final class ForecastSeries {
+    private final long[] timestamps;
+    private final float[] temperaturesC;
+    private final short[] conditions;
+    private final int size;
+    private final ConditionRegistry registry;
+
+    private ForecastSeries(long[] timestamps, float[] temperaturesC, short[] conditions, int size, ConditionRegistry registry) {
+        this.timestamps = timestamps;
+        this.temperaturesC = temperaturesC;
+        this.conditions = conditions;
+        this.size = size;
+        this.registry = registry;
+    }
+
+    /**
+     * Convert a list of entries whose temperatures are expressed in {@code units}.
+     */
+    public static ForecastSeries fromEntries(List<ForecastEntry> entries, String units) {
+        return fromEntries(entries, Units.of(units));
+    }
+
+    public static ForecastSeries fromEntries(List<ForecastEntry> entries, Units units) {
+        boolean imperial = units == Units.IMPERIAL;
+        Builder b = new Builder(entries.size());
+        for (ForecastEntry fe : entries) {
+            double t = fe.getTemperature();
+            b.add(fe.getTimestamp(), imperial ? (t - 32) * 5 / 9 : t, fe.getDescription(), fe.getIcon());
+        }
+        return b.build();
+    }
+
+    /**
+     * Eagerly materialize all hours as {@link ForecastEntry} beans in the given units.
+     */
+    public List<ForecastEntry> toEntries(String units) {
+        return toEntries(Units.of(units));
+    }
+
+    public List<ForecastEntry> toEntries(Units units) {
+        List<ForecastEntry> result = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) result.add(toEntry(i, units));
+        return result;
+    }
+
+    public ForecastEntry toEntry(int index, String units) {
+        return toEntry(index, Units.of(units));
+    }
+
+    public ForecastEntry toEntry(int index, Units units) {
+        checkIndex(index);
+        ForecastEntry fe = new ForecastEntry();
+        fe.setTimestamp(timestamps[index]);
+        fe.setTemperature(getTemperature(index, units));
+        fe.setDescription(registry.description(conditions[index]));
+        fe.setIcon(registry.icon(conditions[index]));
+        fe.setConditionCode(registry.get(conditions[index]).getCode());
+        return fe;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Registry the condition ids of this series refer to.
+     */
+    public ConditionRegistry registry() {
+        return registry;
+    }
+
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return timestamps[index];
+    }
+
+    public float getTemperatureC(int index) {
+        checkIndex(index);
+        return temperaturesC[index];
+    }
+
+    /**
+     * Temperature in °F for "imperial", otherwise °C, rounded to one decimal like the API values.
+     */
+    public double getTemperature(int index, String units) {
+        return getTemperature(index, Units.of(units));
+    }
+
+    public double getTemperature(int index, Units units) {
+        return units.temperature(getTemperatureC(index));
+    }
+
+    public short getCondition(int index) {
+        checkIndex(index);
+        return conditions[index];
+    }
+
+    public String getDescription(int index) {
+        return registry.description(getCondition(index));
+    }
+
+    public String getIcon(int index) {
+        return registry.icon(getCondition(index));
+    }
+
+    /**
+     * WeatherAPI condition code of the hour, or 0 when unknown.
+     */
+    public int getConditionCode(int index) {
+        return registry.get(getCondition(index)).getCode();
+    }
+
+    /**
+     * First index whose timestamp is at or after {@code epoch}, or {@link #size()} if none.
+     */
+    public int indexAtOrAfter(long epoch) {
+        int i = Arrays.binarySearch(timestamps, 0, size, epoch);
+        if (i < 0) return -i - 1;
+        while (i > 0 && timestamps[i - 1] == epoch) i--;
+        return i;
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+    }
+
+    /**
+     * Accumulates hours in arrival order; not thread-safe.
+     */
+    public static final class Builder {
+        private long[] timestamps;
+        private float[] temperaturesC;
+        private short[] conditions;
+        private int size;
+        private final ConditionRegistry registry;
+
+        public Builder() {
+            this(24);
+        }
+
+        public Builder(int expectedSize) {
+            this(expectedSize, ConditionRegistry.shared());
+        }
+
+        public Builder(int expectedSize, ConditionRegistry registry) {
+            int cap = Math.max(1, expectedSize);
+            this.timestamps = new long[cap];
+            this.temperaturesC = new float[cap];
+            this.conditions = new short[cap];
+            this.registry = registry;
+        }
+
+        public Builder add(long timestamp, double temperatureC, String description, String icon) {
+            return add(timestamp, temperatureC, registry.intern(description, icon));
+        }
+
+        /**
+         * Add an hour whose condition was already interned in this builder's registry.
+         */
+        public Builder add(long timestamp, double temperatureC, short conditionId) {
+            if (size == timestamps.length) {
+                int cap = size * 2;
+                timestamps = Arrays.copyOf(timestamps, cap);
+                temperaturesC = Arrays.copyOf(temperaturesC, cap);
+                conditions = Arrays.copyOf(conditions, cap);
+            }
+            timestamps[size] = timestamp;
+            temperaturesC[size] = (float) temperatureC;
+            conditions[size] = conditionId;
+            size++;
+            return this;
+        }
+
+        public int size() {
+            return size;
+        }
+
+        public ConditionRegistry registry() {
+            return registry;
+        }
+
+        public ForecastSeries build() {
+            // trim so a long-lived series does not keep the growth slack
+            return new ForecastSeries(Arrays.copyOf(timestamps, size), Arrays.copyOf(temperaturesC, size),
+                    Arrays.copyOf(conditions, size), size, registry);
+        }
+    }
+}
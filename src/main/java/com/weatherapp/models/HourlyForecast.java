@@ -0,0 +1,106 @@
+package com.weatherapp.models;
+
+import java.util.AbstractList;
+import java.util.List;
+
+/**
+ * Read-only hourly forecast view over a {@link ForecastSeries} in one unit system.
+ * <p>
+ * {@link ForecastEntry} objects are only created for the hours a caller actually asks for,
+ * so holding a long forecast horizon costs a few primitive arrays rather than one bean per hour.
+ * Timestamps are in ascending order, which lets the windowed queries use binary search.
+ */
+public final class HourlyForecast {
+    private final ForecastSeries series;
+    private final Units units;
+    private final int size;
+
+    /**
+     * View over the first {@code size} hours of {@code series}, with temperatures in {@code units}.
+     */
+    public HourlyForecast(ForecastSeries series, Units units, int size) {
+        this.series = series;
+        this.units = units;
+        this.size = Math.max(0, Math.min(size, series.size()));
+    }
+
+    /**
+     * Wrap already-converted entries; temperatures are kept exactly as given.
+     */
+    public static HourlyForecast fromEntries(List<ForecastEntry> entries) {
+        return new HourlyForecast(ForecastSeries.fromEntries(entries, Units.METRIC), Units.METRIC, entries.size());
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public ForecastSeries getSeries() {
+        return series;
+    }
+
+    public Units getUnits() {
+        return units;
+    }
+
+    public long getTimestamp(int index) {
+        checkIndex(index);
+        return series.getTimestamp(index);
+    }
+
+    /**
+     * Materialize the entry at {@code index}. Each call returns a new object.
+     */
+    public ForecastEntry get(int index) {
+        checkIndex(index);
+        return series.toEntry(index, units);
+    }
+
+    /**
+     * Up to {@code count} hours starting with the hour that contains {@code fromEpoch} (epoch seconds).
+     */
+    public List<ForecastEntry> next(int count, long fromEpoch) {
+        // an hourly slot stays current until an hour after its start time
+        int start = lowerBound(fromEpoch - 3599);
+        return window(start, Math.min(size, start + Math.max(0, count)));
+    }
+
+    /**
+     * Hours whose start time lies in {@code [fromEpoch, toEpoch)} (epoch seconds).
+     */
+    public List<ForecastEntry> between(long fromEpoch, long toEpoch) {
+        int start = lowerBound(fromEpoch);
+        int end = Math.max(start, lowerBound(toEpoch));
+        return window(start, end);
+    }
+
+    /**
+     * Lazy list view over all hours; elements are materialized on access.
+     */
+    public List<ForecastEntry> asList() {
+        return window(0, size);
+    }
+
+    private List<ForecastEntry> window(int from, int to) {
+        return new AbstractList<>() {
+            @Override
+            public ForecastEntry get(int index) {
+                if (index < 0 || index >= to - from) throw new IndexOutOfBoundsException(index);
+                return HourlyForecast.this.get(from + index);
+            }
+
+            @Override
+            public int size() {
+                return to - from;
+            }
+        };
+    }
+
+    private int lowerBound(long epoch) {
+        return Math.min(size, series.indexAtOrAfter(epoch));
+    }
+
+    private void checkIndex(int index) {
+        if (index < 0 || index >= size) throw new IndexOutOfBoundsException(index);
+    }
+}
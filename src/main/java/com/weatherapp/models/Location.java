@@ -0,0 +1,21 @@
+package com.weatherapp.models;
+
+/**
+ * A place as WeatherAPI's search endpoint identifies it.
+ * <p>
+ * {@link #query()} is the canonical {@code q} value for it, so every spelling that resolves here
+ * shares one upstream request and one cache entry.
+ */
+public record Location(long id, String name, String region, String country, double lat, double lon) {
+
+    /**
+     * Canonical {@code q} parameter: the WeatherAPI location id when known, else coordinates.
+     */
+    public String query() {
+        return id > 0 ? "id:" + id : String.format(java.util.Locale.ROOT, "%.4f,%.4f", lat, lon);
+    }
+
+    public String displayName() {
+        return country == null || country.isEmpty() ? name : name + ", " + country;
+    }
+}
@@ -0,0 +1,49 @@
+package com.weatherapp.models;
+
+/**
+ * Display unit systems. Models store canonical values (°C, m/s) and project them on read.
+ */
+public enum Units {
+    METRIC("°C", "m/s"),
+    IMPERIAL("°F", "mph");
+
+    private static final double MPH_PER_MS = 3600.0 / 1609.344;
+
+    private final String temperatureSymbol;
+    private final String windSpeedSymbol;
+
+    Units(String temperatureSymbol, String windSpeedSymbol) {
+        this.temperatureSymbol = temperatureSymbol;
+        this.windSpeedSymbol = windSpeedSymbol;
+    }
+
+    /**
+     * Map the legacy "metric"/"imperial" strings used across the app; anything else is metric.
+     */
+    public static Units of(String name) {
+        return name != null && name.equalsIgnoreCase("imperial") ? IMPERIAL : METRIC;
+    }
+
+    /**
+     * Convert a temperature in °C, rounded to one decimal like WeatherAPI's own values.
+     */
+    public double temperature(double celsius) {
+        double t = this == IMPERIAL ? celsius * 9 / 5 + 32 : celsius;
+        return Math.round(t * 10) / 10.0;
+    }
+
+    /**
+     * Convert a wind speed in m/s.
+     */
+    public double windSpeed(double metersPerSecond) {
+        return this == IMPERIAL ? metersPerSecond * MPH_PER_MS : metersPerSecond;
+    }
+
+    public String getTemperatureSymbol() {
+        return temperatureSymbol;
+    }
+
+    public String getWindSpeedSymbol() {
+        return windSpeedSymbol;
+    }
+}
@@ -11,6 +11,7 @@ public class WeatherData {
     private double windSpeed;
     private String description;
     private String icon;
+    private int conditionCode;
     private long timestamp;
 
     public String getCityName() {
@@ -76,4 +77,15 @@ public class WeatherData {
     public void setTimestamp(long timestamp) {
         this.timestamp = timestamp;
     }
+
+    /**
+     * WeatherAPI condition code (see {@link ConditionRegistry}), or 0 when unknown.
+     */
+    public int getConditionCode() {
+        return conditionCode;
+    }
+
+    public void setConditionCode(int conditionCode) {
+        this.conditionCode = conditionCode;
+    }
 }
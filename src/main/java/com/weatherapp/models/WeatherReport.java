@@ -0,0 +1,48 @@
+package com.weatherapp.models;
+
+import java.util.List;
+
+/**
+ * Current conditions plus the hourly forecast, as returned by a single forecast request.
+ */
+public class WeatherReport {
+    private final WeatherData current;
+    private final HourlyForecast hourly;
+    private final boolean offline;
+
+    public WeatherReport(WeatherData current, List<ForecastEntry> forecast) {
+        this(current, HourlyForecast.fromEntries(forecast));
+    }
+
+    public WeatherReport(WeatherData current, HourlyForecast hourly) {
+        this(current, hourly, false);
+    }
+
+    public WeatherReport(WeatherData current, HourlyForecast hourly, boolean offline) {
+        this.current = current;
+        this.hourly = hourly;
+        this.offline = offline;
+    }
+
+    public WeatherData getCurrent() {
+        return current;
+    }
+
+    /**
+     * All forecast hours as a lazily materialized list.
+     */
+    public List<ForecastEntry> getForecast() {
+        return hourly.asList();
+    }
+
+    public HourlyForecast getHourly() {
+        return hourly;
+    }
+
+    /**
+     * Whether this is saved data served because WeatherAPI could not be reached.
+     */
+    public boolean isOffline() {
+        return offline;
+    }
+}
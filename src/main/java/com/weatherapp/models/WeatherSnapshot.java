@@ -0,0 +1,37 @@
+package com.weatherapp.models;
+
+/**
+ * Immutable, unit-agnostic result of one WeatherAPI lookup: the current observation plus the
+ * hourly forecast (empty for current-only lookups). Safe to share across threads and caches.
+ *
+ * @param forecastDays forecast horizon the payload was requested with, 0 for current-only lookups
+ * @param offline      true if this is a saved snapshot served because WeatherAPI was unreachable
+ */
+public record WeatherSnapshot(CurrentConditions current, ForecastSeries forecast, int forecastDays, boolean offline) {
+
+    public WeatherSnapshot(CurrentConditions current, ForecastSeries forecast, int forecastDays) {
+        this(current, forecast, forecastDays, false);
+    }
+
+    public WeatherSnapshot withForecastDays(int days) {
+        return new WeatherSnapshot(current, forecast, days, offline);
+    }
+
+    /**
+     * This snapshot, marked as served in place of a failed refresh.
+     */
+    public WeatherSnapshot asOffline() {
+        return offline ? this : new WeatherSnapshot(current, forecast, forecastDays, true);
+    }
+
+    /**
+     * Lazily materialized view over the first {@code maxHours} forecast hours in {@code units}.
+     */
+    public HourlyForecast hourly(Units units, int maxHours) {
+        return new HourlyForecast(forecast, units, maxHours);
+    }
+
+    public WeatherReport toReport(Units units, int maxHours) {
+        return new WeatherReport(current.toWeatherData(units), hourly(units, maxHours), offline);
+    }
+}
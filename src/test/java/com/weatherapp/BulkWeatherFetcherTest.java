@@ -0,0 +1,95 @@
+package com.weatherapp;
+
+import com.weatherapp.models.WeatherData;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class BulkWeatherFetcherTest {
+    private StubWeatherApi api;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        api = new StubWeatherApi();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        api.close();
+    }
+
+    @Test
+    public void respectsConcurrencyLimitAndReportsFailuresPerCity() throws Exception {
+        api.delayMillis = 30;
+        api.responder = ex -> StubWeatherApi.query(ex).startsWith("Nowhere") ? null : StubWeatherApi.FORECAST_JSON;
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 20; i++) cities.add("City" + i);
+        cities.add("Nowhere");
+
+        BulkWeatherFetcher fetcher = new BulkWeatherFetcher(api.newService(), 4);
+        List<BulkWeatherFetcher.Result> results = fetcher.fetchAllBlocking(cities, "metric");
+
+        assertEquals(21, results.size());
+        assertEquals(20, results.stream().filter(BulkWeatherFetcher.Result::isSuccess).count());
+        assertTrue(api.peakInFlight.get() <= 4, "peak in flight " + api.peakInFlight.get());
+        assertEquals(21, api.requests.get());
+    }
+
+    @Test
+    public void requestsThatThrowSynchronouslyFailOnlyTheirCity() throws Exception {
+        api.responder = ex -> StubWeatherApi.FORECAST_JSON;
+        WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 500) {
+            @Override
+            public CompletableFuture<WeatherData> getCurrentWeatherAsync(String city, String units, Duration timeout) {
+                if (city.startsWith("Broken")) throw new RejectedExecutionException("executor shut down");
+                return super.getCurrentWeatherAsync(city, units, timeout);
+            }
+        };
+        List<String> cities = List.of("City0", "Broken0", "City1", "Broken1", "City2");
+
+        List<BulkWeatherFetcher.Result> results = new BulkWeatherFetcher(ws, 2).fetchAllBlocking(cities, "metric");
+
+        assertEquals(5, results.size());
+        assertEquals(3, results.stream().filter(BulkWeatherFetcher.Result::isSuccess).count());
+        assertTrue(results.stream().filter(r -> !r.isSuccess())
+                .allMatch(r -> r.getError() instanceof RejectedExecutionException));
+    }
+
+    @Test
+    public void bulkRequestFormSplitsIntoChunks() throws Exception {
+        api.responder = ex -> {
+            StringBuilder sb = new StringBuilder("{\"bulk\":[");
+            for (int i = 0; i < BulkWeatherFetcher.BULK_CHUNK_SIZE; i++) {
+                if (i > 0) sb.append(',');
+                sb.append("{\"query\":{\"custom_id\":\"").append(i).append("\",\"q\":\"x\",")
+                        .append("\"location\":{\"name\":\"C").append(i).append("\",\"country\":\"TC\"},")
+                        .append("\"current\":{\"temp_c\":1.0,\"temp_f\":33.8,\"humidity\":50,\"wind_kph\":3.6,\"wind_mph\":2.2,\"last_updated_epoch\":1600000000}}}");
+            }
+            return sb.append("]}").toString();
+        };
+        List<String> cities = new ArrayList<>();
+        for (int i = 0; i < 60; i++) cities.add("City" + i);
+
+        BulkWeatherFetcher fetcher = new BulkWeatherFetcher(api.newService(), 2, true, Duration.ofSeconds(5));
+        List<BulkWeatherFetcher.Result> results = fetcher.fetchAllBlocking(cities, "metric");
+
+        assertEquals(60, results.size());
+        assertEquals(60, results.stream().filter(BulkWeatherFetcher.Result::isSuccess).count());
+        assertEquals(2, api.requests.get());
+    }
+
+    @Test
+    public void percentileUsesNearestRank() {
+        long[] sorted = {1_000_000, 2_000_000, 3_000_000, 4_000_000};
+        assertEquals(2.0, ConsoleRunner.percentile(sorted, 50), 0.001);
+        assertEquals(4.0, ConsoleRunner.percentile(sorted, 99), 0.001);
+    }
+}
@@ -0,0 +1,75 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class CityIndexTest {
+    private static final long NOW = 1_700_000_000L;
+    private static final long DAY = 86_400L;
+
+    @Test
+    public void matchesPrefixIgnoringCaseAndAccents() {
+        CityIndex idx = CityIndex.build(List.of("Zürich, Switzerland", "Zagreb, Croatia", "São Paulo, Brazil"), List.of(), NOW);
+        assertEquals(List.of("Zürich, Switzerland"), idx.suggest("zur", 5));
+        assertEquals(List.of("São Paulo, Brazil"), idx.suggest("SAO P", 5));
+        assertEquals(List.of("Zürich, Switzerland", "Zagreb, Croatia"), idx.suggest("z", 5));
+        assertTrue(idx.suggest("q", 5).isEmpty());
+        assertTrue(idx.suggest("  ", 5).isEmpty());
+    }
+
+    @Test
+    public void historyRanksByFrequencyAndRecency() {
+        List<String> gazetteer = List.of("London, United Kingdom", "Lagos, Nigeria", "Lima, Peru", "Lyon, France");
+        List<HistoryManager.HistoryEntry> history = List.of(
+                new HistoryManager.HistoryEntry("lyon", NOW - DAY),
+                new HistoryManager.HistoryEntry("Lima", NOW - 60 * DAY),
+                new HistoryManager.HistoryEntry("Lima", NOW - 61 * DAY),
+                new HistoryManager.HistoryEntry("Lilongwe", NOW - 2 * DAY));
+        CityIndex idx = CityIndex.build(gazetteer, history, NOW);
+
+        // recent searches first, then older ones, then unsearched cities in gazetteer order
+        assertEquals(List.of("Lyon, France", "Lilongwe", "Lima, Peru", "London, United Kingdom", "Lagos, Nigeria"),
+                idx.suggest("l", 10));
+        // one recent search outweighs two old ones
+        assertEquals(List.of("Lilongwe", "Lima, Peru"), idx.suggest("li", 10));
+        assertEquals(5, idx.size());
+    }
+
+    @Test
+    public void bundledGazetteerLoads() {
+        List<String> cities = CityIndex.bundled();
+        assertTrue(cities.size() > 100);
+        assertTrue(CityIndex.build(cities, List.of(), NOW).suggest("lond", 3).contains("London, United Kingdom"));
+    }
+
+    @Test
+    public void lookupsOnlyRankTheirOwnRangeAtGazetteerScale() {
+        Random rnd = new Random(42);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < 50_000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int len = 4 + rnd.nextInt(8);
+            for (int j = 0; j < len; j++) sb.append((char) ('a' + rnd.nextInt(26)));
+            names.add(sb + ", Country");
+        }
+        CityIndex idx = CityIndex.build(names, List.of(), NOW);
+        String[] prefixes = new String[2000];
+        for (int i = 0; i < prefixes.length; i++) {
+            String n = names.get(rnd.nextInt(names.size()));
+            prefixes[i] = n.substring(0, 1 + rnd.nextInt(4));
+        }
+        // count work instead of timing it: short prefixes come from the precomputed lists and
+        // longer ones only rank the few names sharing them, never a large slice of the index
+        for (String p : prefixes) {
+            assertFalse(idx.suggest(p, 8).isEmpty());
+            int scanned = idx.scanned(p);
+            if (p.length() <= 2) assertEquals(0, scanned);
+            else assertTrue(scanned > 0 && scanned < 500, p + " ranked " + scanned + " names");
+        }
+    }
+}
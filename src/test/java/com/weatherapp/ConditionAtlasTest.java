@@ -0,0 +1,54 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ConditionRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.ImageIcon;
+import java.awt.image.BufferedImage;
+import java.nio.file.Path;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConditionAtlasTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void coversEveryKnownConditionDayAndNight() {
+        ConditionAtlas atlas = ConditionAtlas.shared();
+        assertNotNull(atlas);
+        for (int code = 1000; code <= 1282; code++) {
+            int n = ConditionRegistry.iconNumberForCode(code);
+            if (n == 0) continue;
+            for (boolean day : new boolean[]{true, false}) {
+                String url = ConditionRegistry.iconUrl(n, day);
+                assertTrue(atlas.covers(url), url);
+                BufferedImage img = atlas.slice(url);
+                assertEquals(atlas.getCellSize(), img.getWidth());
+            }
+        }
+    }
+
+    @Test
+    public void resolvesCdnUrlForms() {
+        assertEquals("296.night", ConditionAtlas.keyFor("//cdn.weatherapi.com/weather/64x64/night/296.png"));
+        assertEquals("113.day", ConditionAtlas.keyFor("https://cdn.weatherapi.com/weather/128x128/day/113.png"));
+        assertNull(ConditionAtlas.keyFor("https://example.com/weather/64x64/day/113.png"));
+        assertFalse(ConditionAtlas.shared().covers("//cdn.weatherapi.com/weather/64x64/day/999.png"));
+    }
+
+    @Test
+    public void iconCacheServesConditionIconsWithoutNetwork() throws Exception {
+        IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+        ImageIcon icon = cache.load("//cdn.weatherapi.com/weather/64x64/day/116.png").get(5, TimeUnit.SECONDS);
+        assertNotNull(icon);
+        assertEquals(48, icon.getIconWidth());
+        assertEquals(1, cache.getAtlasHitCount());
+        assertEquals(0, cache.getNetworkFetchCount());
+        assertEquals(0, cache.getDiskLoadCount());
+        cache.shutdown();
+    }
+}
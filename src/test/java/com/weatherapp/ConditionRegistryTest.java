@@ -0,0 +1,71 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ConditionRegistry;
+import com.weatherapp.models.WeatherData;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ConditionRegistryTest {
+
+    @Test
+    public void sameCodeAndDayFlagShareOneEntry() {
+        ConditionRegistry reg = new ConditionRegistry();
+        short a = reg.intern(1003, true, "Partly cloudy", "//cdn.weatherapi.com/weather/64x64/day/116.png");
+        short b = reg.intern(1003, true, new String("Partly cloudy"), "//cdn.weatherapi.com/weather/64x64/day/116.png");
+        short night = reg.intern(1003, false, "Partly cloudy", "//cdn.weatherapi.com/weather/64x64/night/116.png");
+        assertEquals(a, b);
+        assertNotEquals(a, night);
+        ConditionRegistry.Condition c = reg.get(a);
+        assertEquals("https://cdn.weatherapi.com/weather/64x64/day/116.png", c.getIcon());
+        assertEquals(116, c.getIconNumber());
+        assertTrue(c.isDay());
+        assertFalse(reg.get(night).isDay());
+        assertEquals(ConditionRegistry.iconUrl(116, true), c.getIcon());
+    }
+
+    @Test
+    public void differentTextForKnownCodeGetsItsOwnSlot() {
+        ConditionRegistry reg = new ConditionRegistry();
+        short en = reg.intern(1000, true, "Sunny", "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        short fr = reg.intern(1000, true, "Ensoleillé", "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        assertNotEquals(en, fr);
+        assertEquals("Ensoleillé", reg.description(fr));
+        assertEquals(1000, reg.get(fr).getCode());
+        assertEquals(fr, reg.intern(1000, true, "Ensoleillé", "//cdn.weatherapi.com/weather/64x64/day/113.png"));
+    }
+
+    @Test
+    public void unknownCodeFallsBackToIconFileName() {
+        ConditionRegistry reg = new ConditionRegistry();
+        short id = reg.intern(0, false, "Odd", "https://cdn.weatherapi.com/weather/64x64/night/999.png");
+        assertEquals(999, reg.get(id).getIconNumber());
+        assertEquals(id, reg.intern("Odd", "https://cdn.weatherapi.com/weather/64x64/night/999.png"));
+    }
+
+    @Test
+    public void textKeyedEntriesAreCapped() {
+        ConditionRegistry reg = new ConditionRegistry(3);
+        short sunny = reg.intern(1000, true, "Sunny", "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        for (int i = 0; i < 10; i++) {
+            reg.intern(0, true, "Free text " + i, "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        }
+        short localized = reg.intern(1000, true, "Soleado", "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        short free = reg.intern("More free text", "https://cdn.weatherapi.com/weather/64x64/day/113.png");
+
+        assertEquals(sunny, localized);
+        assertEquals("Unknown", reg.description(free));
+        assertEquals(1 + 3 + 1, reg.size());
+    }
+
+    @Test
+    public void parsedModelsShareCanonicalStrings() {
+        String json = "{\"location\":{\"name\":\"A\",\"country\":\"B\"},\"current\":{\"temp_c\":1,\"temp_f\":33.8,\"humidity\":1," +
+                "\"wind_kph\":1,\"wind_mph\":1,\"is_day\":1,\"condition\":{\"text\":\"Overcast\",\"icon\":\"//cdn.weatherapi.com/weather/64x64/day/122.png\",\"code\":1009}}}";
+        WeatherData a = WeatherApiParser.parseCurrent(json, "metric");
+        WeatherData b = WeatherApiParser.parseCurrent(json, "imperial");
+        assertSame(a.getDescription(), b.getDescription());
+        assertSame(a.getIcon(), b.getIcon());
+        assertEquals(1009, a.getConditionCode());
+    }
+}
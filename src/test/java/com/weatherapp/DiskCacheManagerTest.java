@@ -0,0 +1,83 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.time.Duration;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DiskCacheManagerTest {
+
+    @TempDir
+    Path dir;
+
+    private static final long RECORD = 64 * 64 * 4 + 64; // pixels plus a small header
+
+    private static BufferedImage image() {
+        return new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedDownToCap() throws Exception {
+        try (IconPack pack = new IconPack(dir.resolve("icons.pack"))) {
+            DiskCacheManager gc = new DiskCacheManager(pack, dir, 4 * RECORD, Duration.ofDays(30));
+            int now = (int) (System.currentTimeMillis() / 60_000L);
+            for (int i = 0; i < 8; i++) {
+                pack.put("k" + i, image());
+                gc.setLastAccessMinutes("k" + i, now - 100 + i); // k0 is the oldest
+            }
+
+            assertFalse(gc.sweep());
+            assertEquals(4, gc.getEvictionCount());
+            for (int i = 0; i < 4; i++) assertFalse(pack.contains("k" + i));
+            for (int i = 4; i < 8; i++) assertTrue(pack.contains("k" + i));
+            assertTrue(gc.getDiskBytes() <= 4 * RECORD + 1024);
+            gc.shutdown();
+        }
+    }
+
+    @Test
+    public void expiresOldEntriesAndStaleTempFiles() throws Exception {
+        Path oldTmp = Files.writeString(dir.resolve("abc.png.tmp"), "partial");
+        Files.setLastModifiedTime(oldTmp, FileTime.from(Instant.now().minus(Duration.ofHours(1))));
+        Path freshTmp = Files.writeString(dir.resolve("def.png.tmp"), "in progress");
+        try (IconPack pack = new IconPack(dir.resolve("icons.pack"))) {
+            DiskCacheManager gc = new DiskCacheManager(pack, dir, Long.MAX_VALUE, Duration.ofDays(1));
+            int now = (int) (System.currentTimeMillis() / 60_000L);
+            pack.put("stale", image());
+            pack.put("recent", image());
+            gc.setLastAccessMinutes("stale", now - 2 * 24 * 60);
+            gc.touch("recent");
+
+            gc.sweep();
+            assertFalse(pack.contains("stale"));
+            assertTrue(pack.contains("recent"));
+            assertFalse(Files.exists(oldTmp));
+            assertTrue(Files.exists(freshTmp));
+            assertEquals(1, gc.getTempFilesRemoved());
+            gc.shutdown();
+        }
+    }
+
+    @Test
+    public void accessTimesSurviveRestart() throws Exception {
+        int stamp = (int) (System.currentTimeMillis() / 60_000L) - 5;
+        try (IconPack pack = new IconPack(dir.resolve("icons.pack"))) {
+            DiskCacheManager gc = new DiskCacheManager(pack, dir, Long.MAX_VALUE, Duration.ofDays(30));
+            pack.put("a", image());
+            gc.setLastAccessMinutes("a", stamp);
+            gc.shutdown();
+        }
+        try (IconPack pack = new IconPack(dir.resolve("icons.pack"))) {
+            DiskCacheManager gc = new DiskCacheManager(pack, dir, Long.MAX_VALUE, Duration.ofDays(30));
+            assertEquals(stamp, gc.lastAccessMinutes("a"));
+            gc.shutdown();
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ConditionRegistry;
+import com.weatherapp.models.ForecastEntry;
+import com.weatherapp.models.ForecastSeries;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ForecastSeriesTest {
+
+    private static ForecastEntry entry(long ts, double temp, String desc, String icon) {
+        ForecastEntry fe = new ForecastEntry();
+        fe.setTimestamp(ts);
+        fe.setTemperature(temp);
+        fe.setDescription(desc);
+        fe.setIcon(icon);
+        return fe;
+    }
+
+    @Test
+    public void roundTripsThroughEntryAdapters() {
+        List<ForecastEntry> in = new ArrayList<>();
+        in.add(entry(1000, 51.8, "Cloudy", "https://cdn.weatherapi.com/weather/64x64/day/119.png"));
+        in.add(entry(4600, 50.0, "Sunny", "https://cdn.weatherapi.com/weather/64x64/day/113.png"));
+
+        ForecastSeries series = ForecastSeries.fromEntries(in, "imperial");
+        assertEquals(11.0, series.getTemperatureC(0), 0.001);
+        assertEquals(10.0, series.getTemperatureC(1), 0.001);
+
+        List<ForecastEntry> out = series.toEntries("imperial");
+        assertEquals(2, out.size());
+        for (int i = 0; i < in.size(); i++) {
+            assertEquals(in.get(i).getTimestamp(), out.get(i).getTimestamp());
+            assertEquals(in.get(i).getTemperature(), out.get(i).getTemperature(), 0.001);
+            assertEquals(in.get(i).getDescription(), out.get(i).getDescription());
+            assertEquals(in.get(i).getIcon(), out.get(i).getIcon());
+        }
+    }
+
+    @Test
+    public void conditionsAreSharedThroughTheDictionary() {
+        ConditionRegistry dict = new ConditionRegistry();
+        ForecastSeries.Builder a = new ForecastSeries.Builder(4, dict);
+        ForecastSeries.Builder b = new ForecastSeries.Builder(4, dict);
+        for (int i = 0; i < 48; i++) {
+            a.add(i * 3600L, 10, i % 2 == 0 ? "Sunny" : "Cloudy", "icon" + (i % 2));
+            b.add(i * 3600L, 12, "Sunny", "icon0");
+        }
+        ForecastSeries sa = a.build();
+        ForecastSeries sb = b.build();
+        assertEquals(2, dict.size());
+        assertEquals(sa.getCondition(0), sb.getCondition(5));
+        assertSame(sa.getDescription(0), sb.getDescription(7));
+        assertEquals(48, sa.size());
+        assertEquals(10, sa.indexAtOrAfter(9 * 3600L + 1));
+    }
+}
@@ -0,0 +1,114 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class GeoIndexTest {
+
+    @Test
+    public void findsNearestWithinRadius() {
+        GeoIndex<String> idx = new GeoIndex<>(2.0, 60_000, 100);
+        idx.put(51.5074, -0.1278, "london");
+        idx.put(51.5155, -0.0922, "city");
+        idx.put(48.8566, 2.3522, "paris");
+
+        assertEquals("london", idx.nearest(51.5080, -0.1280, 2.0, null));
+        assertEquals("city", idx.nearest(51.5150, -0.0930, 2.0, null));
+        assertNull(idx.nearest(52.2053, 0.1218, 2.0, null)); // Cambridge is ~80 km away
+        assertEquals("london", idx.nearest(52.2053, 0.1218, 100.0, s -> !s.equals("city")));
+        assertEquals(1.0, GeoIndex.distanceKm(0, 0, 0, 0.008993), 0.01);
+    }
+
+    @Test
+    public void ignoresStaleEntriesAndReplacesSamePoint() {
+        AtomicLong now = new AtomicLong(1_000_000);
+        GeoIndex<String> idx = new GeoIndex<>(1.0, Duration.ofMinutes(10).toMillis(), 100, now::get);
+        idx.put(10.0, 10.0, "old");
+        idx.put(10.0, 10.0, "new");
+        assertEquals(1, idx.size());
+        assertEquals("new", idx.nearest(10.0, 10.001, 1.0, null));
+
+        now.addAndGet(Duration.ofMinutes(11).toMillis());
+        assertNull(idx.nearest(10.0, 10.0, 1.0, null));
+    }
+
+    @Test
+    public void measuresFreshnessFromObservationTime() {
+        AtomicLong now = new AtomicLong(1_000_000_000);
+        GeoIndex<String> idx = new GeoIndex<>(1.0, Duration.ofMinutes(10).toMillis(), 100, now::get);
+        // observed 8 minutes ago: fresh for two more minutes, however recently it was inserted
+        idx.put(10.0, 10.0, "recent", now.get() - Duration.ofMinutes(8).toMillis());
+        idx.put(20.0, 20.0, "stale", now.get() - Duration.ofMinutes(11).toMillis());
+        assertEquals(1, idx.size());
+        assertEquals("recent", idx.nearest(10.0, 10.0, 1.0, null));
+        now.addAndGet(Duration.ofMinutes(3).toMillis());
+        assertNull(idx.nearest(10.0, 10.0, 1.0, null));
+    }
+
+    @Test
+    public void worksAcrossTheAntimeridianAndCapsSize() {
+        GeoIndex<Integer> idx = new GeoIndex<>(5.0, 60_000, 3);
+        idx.put(0.0, 179.99, 1);
+        assertEquals(1, idx.nearest(0.0, -179.99, 5.0, null));
+        for (int i = 2; i <= 5; i++) idx.put(i, i, i);
+        assertEquals(3, idx.size());
+    }
+
+    @Test
+    public void nearbyCoordinateQueriesShareOneRequest() throws Exception {
+        AtomicInteger requests = new AtomicInteger();
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            String observedNow = StubWeatherApi.FORECAST_JSON.replace("1600000000",
+                    Long.toString(System.currentTimeMillis() / 1000));
+            api.responder = ex -> {
+                requests.incrementAndGet();
+                return observedNow;
+            };
+            WeatherService ws = api.newService();
+            ws.getWeather("51.5000,-0.1200", "metric");
+            ws.getWeather("51.5010,-0.1210", "imperial");   // ~130 m away
+            ws.getCurrentWeather("51.5030, -0.1190", "metric");
+            assertEquals(1, requests.get());
+            assertEquals(2, ws.getNearbyHitCount());
+
+            ws.getWeather("48.8566,2.3522", "metric");       // Paris
+            assertEquals(2, requests.get());
+
+            ws.setNearbyReuse(0, Duration.ofMinutes(10));
+            ws.getWeather("51.5020,-0.1220", "metric");
+            assertEquals(3, requests.get());
+        }
+    }
+
+    @Test
+    public void laggingObservationsAreReusedFromFetchTime() throws Exception {
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            // WeatherAPI refreshes about every 15 minutes, so a response is often ~12 minutes old
+            long lagging = System.currentTimeMillis() / 1000 - Duration.ofMinutes(12).toSeconds();
+            String json = StubWeatherApi.FORECAST_JSON.replace("1600000000", Long.toString(lagging));
+            api.responder = ex -> json;
+            WeatherService ws = api.newService();
+            ws.getWeather("51.5000,-0.1200", "metric");
+            ws.getWeather("51.5010,-0.1210", "metric");
+            assertEquals(1, api.requests.get());
+            assertEquals(1, ws.getNearbyHitCount());
+        }
+    }
+
+    @Test
+    public void oldObservationsAreNotReusedNearby() throws Exception {
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            // FORECAST_JSON was last updated in 2020, long past the cache TTL
+            WeatherService ws = api.newService();
+            ws.getWeather("51.5000,-0.1200", "metric");
+            ws.getWeather("51.5010,-0.1210", "metric");
+            assertEquals(2, api.requests.get());
+            assertEquals(0, ws.getNearbyHitCount());
+        }
+    }
+}
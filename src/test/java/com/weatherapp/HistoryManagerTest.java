@@ -1,6 +1,12 @@
 package com.weatherapp;
 
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -24,4 +30,95 @@ public class HistoryManagerTest {
             fail("Exception during test: " + ex.getMessage());
         }
     }
+
+    @Test
+    public void burstCoalescesIntoOneWriteAndKeepsNewest(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("history.journal");
+        HistoryManager hm = new HistoryManager(file, Duration.ofMillis(200));
+        for (int i = 0; i < 120; i++) hm.addEntry("City" + i, 1000L + i);
+
+        // additions never write on the caller's thread
+        assertFalse(Files.exists(file));
+        assertEquals(HistoryManager.MAX_ENTRIES, hm.getHistory().size());
+        assertEquals("City119", hm.getHistory().get(0).getCity());
+        assertEquals("City70", hm.getHistory().get(HistoryManager.MAX_ENTRIES - 1).getCity());
+
+        long deadline = System.currentTimeMillis() + 5000;
+        while (hm.getWriteCount() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(10);
+        assertEquals(1, hm.getWriteCount());
+
+        HistoryManager reloaded = new HistoryManager(file);
+        assertEquals(hm.getHistory().size(), reloaded.getHistory().size());
+        assertEquals("City119", reloaded.getHistory().get(0).getCity());
+        reloaded.shutdown();
+        hm.shutdown();
+    }
+
+    @Test
+    public void shutdownFlushesPendingEntries(@TempDir Path dir) {
+        Path file = dir.resolve("history.journal");
+        HistoryManager hm = new HistoryManager(file, Duration.ofMinutes(10));
+        hm.addEntry("Oslo", 1L);
+        hm.shutdown();
+
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(dir.resolve("history.journal.tmp")));
+        assertEquals("Oslo", new HistoryManager(file).getHistory().get(0).getCity());
+    }
+
+    @Test
+    public void recoveryKeepsRecordsBeforeATornTail(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("history.journal");
+        HistoryManager hm = new HistoryManager(file, Duration.ofMinutes(10));
+        hm.addEntry("Paris", 1L);
+        hm.flush();
+        hm.addEntry("Rome", 2L);
+        hm.shutdown();
+        long intact = Files.size(file);
+
+        // simulate a crash halfway through appending a third record
+        Files.write(file, new byte[]{0, 0, 0, 20, 1, 2, 3}, StandardOpenOption.APPEND);
+        HistoryManager recovered = new HistoryManager(file);
+        assertEquals(2, recovered.getHistory().size());
+        assertEquals("Rome", recovered.getHistory().get(0).getCity());
+        assertEquals(intact, Files.size(file));
+        recovered.shutdown();
+    }
+
+    @Test
+    public void compactionTrimsJournalToRetentionLimit(@TempDir Path dir) throws Exception {
+        Path file = dir.resolve("history.journal");
+        HistoryManager hm = new HistoryManager(file, Duration.ofMinutes(10));
+        for (int i = 0; i < 150; i++) {
+            hm.addEntry("City" + i, i);
+            hm.flush();
+        }
+        assertTrue(hm.getCompactionCount() >= 1);
+        hm.shutdown();
+
+        HistoryManager reloaded = new HistoryManager(file);
+        assertEquals(HistoryManager.MAX_ENTRIES, reloaded.getHistory().size());
+        assertEquals("City149", reloaded.getHistory().get(0).getCity());
+        // header plus at most twice the retained records
+        assertTrue(Files.size(file) < 4 + 2L * HistoryManager.MAX_ENTRIES * 40);
+        reloaded.shutdown();
+    }
+
+    @Test
+    public void importsLegacyJsonHistory(@TempDir Path dir) throws Exception {
+        Files.writeString(dir.resolve("history.json"),
+                "[{\"city\":\"Lagos\",\"timestamp\":20},{\"city\":\"Accra\",\"timestamp\":10}]");
+        Path file = dir.resolve("history.journal");
+        HistoryManager hm = new HistoryManager(file);
+        assertEquals("Lagos", hm.getHistory().get(0).getCity());
+        assertEquals("Accra", hm.getHistory().get(1).getCity());
+        hm.shutdown();
+
+        assertTrue(Files.exists(file));
+        assertFalse(Files.exists(dir.resolve("history.json")));
+        HistoryManager reloaded = new HistoryManager(file);
+        assertEquals(2, reloaded.getHistory().size());
+        assertEquals("Lagos", reloaded.getHistory().get(0).getCity());
+        reloaded.shutdown();
+    }
 }
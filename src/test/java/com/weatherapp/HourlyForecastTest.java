@@ -0,0 +1,62 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ForecastEntry;
+import com.weatherapp.models.ForecastSeries;
+import com.weatherapp.models.HourlyForecast;
+import com.weatherapp.models.Units;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class HourlyForecastTest {
+    private static final long T0 = 1_600_000_000L;
+
+    private static HourlyForecast hours(int n) {
+        ForecastSeries.Builder b = new ForecastSeries.Builder(n);
+        for (int i = 0; i < n; i++) b.add(T0 + i * 3600L, i, "h" + i, "");
+        return new HourlyForecast(b.build(), Units.METRIC, n);
+    }
+
+    @Test
+    public void nextStartsWithTheCurrentHour() {
+        HourlyForecast hf = hours(14 * 24);
+        List<ForecastEntry> next = hf.next(5, T0 + 10 * 3600 + 1200);
+        assertEquals(5, next.size());
+        assertEquals(T0 + 10 * 3600, next.get(0).getTimestamp());
+        assertEquals(14.0, next.get(4).getTemperature(), 0.001);
+    }
+
+    @Test
+    public void nextIsTruncatedAtTheHorizon() {
+        HourlyForecast hf = hours(24);
+        assertEquals(2, hf.next(5, T0 + 22 * 3600).size());
+        assertTrue(hf.next(5, T0 + 48 * 3600).isEmpty());
+    }
+
+    @Test
+    public void betweenIsHalfOpen() {
+        HourlyForecast hf = hours(48);
+        List<ForecastEntry> w = hf.between(T0 + 3600, T0 + 4 * 3600);
+        assertEquals(3, w.size());
+        assertEquals("h1", w.get(0).getDescription());
+        assertEquals("h3", w.get(2).getDescription());
+    }
+
+    @Test
+    public void horizonLimitsTheParsedView() throws Exception {
+        StubWeatherApi api = new StubWeatherApi();
+        try {
+            WeatherService ws = api.newService();
+            HourlyForecast hf = ws.getHourlyForecast("TestCity", "metric", 30);
+            assertEquals(1, hf.size());
+            assertEquals(1, api.requests.get());
+            // a shorter horizon is served from the cached longer one
+            ws.getHourlyForecast("TestCity", "metric", 1);
+            assertEquals(1, api.requests.get());
+        } finally {
+            api.close();
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.swing.ImageIcon;
+import javax.swing.SwingUtilities;
+import java.awt.Image;
+import java.awt.image.MultiResolutionImage;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IconCacheTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void concurrentLoadsShareOneDownloadPerUrl() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            server.delayMillis = 200;
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            String[] urls = {server.url("a"), server.url("b"), server.url("c")};
+
+            List<CompletableFuture<ImageIcon>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                for (String url : urls) {
+                    futures.add(cache.load(url));
+                    cache.prefetch(url);
+                }
+            }
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get(10, TimeUnit.SECONDS);
+
+            for (CompletableFuture<ImageIcon> f : futures) {
+                assertEquals(48, f.get().getIconWidth());
+            }
+            assertEquals(urls.length, cache.getNetworkFetchCount());
+            assertEquals(urls.length, server.requests.get());
+            assertTrue(cache.getJoinedLoadCount() > 0);
+
+            // later loads are memory hits
+            assertNotNull(cache.load(urls[0]).get());
+            assertEquals(urls.length, server.requests.get());
+        }
+    }
+
+    @Test
+    public void failedDownloadCompletesWithNull() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            assertNull(cache.load(server.url("missing")).get(10, TimeUnit.SECONDS));
+            assertNull(cache.getCached(server.url("missing")));
+        }
+    }
+
+    @Test
+    public void diskTierServesNewInstanceWithoutNetwork() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            String url = server.url("disk");
+            IconCache first = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            first.load(url).get(10, TimeUnit.SECONDS);
+            first.shutdown();
+
+            IconCache fresh = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            assertNotNull(fresh.load(url).get(10, TimeUnit.SECONDS));
+            assertEquals(0, fresh.getNetworkFetchCount());
+            assertEquals(1, fresh.getDiskLoadCount());
+            assertEquals(1, server.requests.get());
+        }
+    }
+
+    @Test
+    public void edtCallsNeverTouchDisk() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            String url = server.url("edt");
+            IconCache first = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            first.load(url).get(10, TimeUnit.SECONDS);
+            first.shutdown();
+
+            IconCache fresh = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            List<CompletableFuture<ImageIcon>> onEdt = new ArrayList<>();
+            SwingUtilities.invokeAndWait(() -> {
+                onEdt.add(fresh.load(url));
+                fresh.getCached(url);
+            });
+            assertNotNull(onEdt.get(0).get(10, TimeUnit.SECONDS));
+            assertEquals(1, fresh.getDiskLoadCount());
+            assertEquals(2, fresh.getEdtCallCount());
+            assertTrue(fresh.getEdtBlockingNanos() >= fresh.getMaxEdtBlockingNanos());
+            // the disk read ran on the I/O executor; the EDT only paid for map lookups
+            assertTrue(fresh.getMaxEdtBlockingNanos() < TimeUnit.MILLISECONDS.toNanos(100),
+                    "EDT blocked for " + fresh.getMaxEdtBlockingNanos() + " ns");
+        }
+    }
+
+    @Test
+    public void cancelQueuedDropsWaitingDownload() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            server.delayMillis = 300;
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir, new IconLoader(1, false));
+            CompletableFuture<ImageIcon> busy = cache.load(server.url("busy"));
+            // wait until the only loader slot is taken so the next download has to queue
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getLoader().getActiveCount() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            CompletableFuture<ImageIcon> hidden = cache.load(server.url("hidden"), IconLoader.Priority.PREFETCH);
+            while (cache.getLoader().getQueueDepth() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+            assertTrue(cache.cancelQueued(server.url("hidden")));
+            assertNull(hidden.get(5, TimeUnit.SECONDS));
+            assertNotNull(busy.get(5, TimeUnit.SECONDS));
+            assertNull(server.requestsByPath.get("/hidden.png"));
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void cancelQueuedKeepsDownloadOthersStillWaitFor() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            server.delayMillis = 300;
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir, new IconLoader(1, false));
+            CompletableFuture<ImageIcon> busy = cache.load(server.url("busy"));
+            long deadline = System.currentTimeMillis() + 5000;
+            while (cache.getLoader().getActiveCount() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+            String url = server.url("shared");
+            CompletableFuture<ImageIcon> scrolledAway = cache.load(url, IconLoader.Priority.PREFETCH);
+            CompletableFuture<ImageIcon> stillShown = cache.load(url, 120, IconLoader.Priority.PREFETCH);
+            while (cache.getLoader().getQueueDepth() == 0 && System.currentTimeMillis() < deadline) Thread.sleep(5);
+
+            // one of two waiters gives up: the download stays queued for the other
+            assertTrue(cache.cancelQueued(url));
+            assertNotNull(stillShown.get(5, TimeUnit.SECONDS));
+            assertNotNull(scrolledAway.get(5, TimeUnit.SECONDS));
+            assertNotNull(busy.get(5, TimeUnit.SECONDS));
+            assertEquals(1, server.requestsByPath.get("/shared.png").get());
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void sizesShareOneDownloadAndMaster() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            String url = server.url("sizes");
+            ImageIcon small = cache.load(url, 48, IconLoader.Priority.VISIBLE).get(10, TimeUnit.SECONDS);
+            ImageIcon large = cache.load(url, 120, IconLoader.Priority.VISIBLE).get(10, TimeUnit.SECONDS);
+
+            assertEquals(48, small.getIconWidth());
+            assertEquals(120, large.getIconWidth());
+            assertEquals(1, server.requests.get());
+            // a new size is derived from the master already in memory
+            assertEquals(32, cache.getCached(url, 32).getIconWidth());
+            assertSame(large, cache.getCached(url, 120));
+
+            cache.remove(url);
+            assertNull(cache.getCached(url, 48));
+            assertNull(cache.getCached(url, 120));
+            cache.shutdown();
+        }
+    }
+
+    @Test
+    public void scaledScreensGetMultiResolutionIcons() throws Exception {
+        try (StubIconServer server = new StubIconServer()) {
+            IconCache cache = new IconCache(48, IconCache.DEFAULT_MEMORY_BYTES, dir);
+            cache.setScaleFactors(1.0, 2.0);
+            ImageIcon icon = cache.load(server.url("hidpi")).get(10, TimeUnit.SECONDS);
+
+            assertEquals(48, icon.getIconWidth());
+            MultiResolutionImage mri = assertInstanceOf(MultiResolutionImage.class, icon.getImage());
+            List<Image> variants = mri.getResolutionVariants();
+            assertEquals(2, variants.size());
+            assertEquals(96, variants.get(1).getWidth(null));
+            assertEquals(IconMemoryCache.weigh(icon), (48L * 48 + 96L * 96) * 4);
+            cache.shutdown();
+        }
+    }
+}
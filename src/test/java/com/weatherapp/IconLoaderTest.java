@@ -0,0 +1,97 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IconLoaderTest {
+
+    private static boolean awaitIdle(IconLoader loader) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (loader.getQueueDepth() > 0 || loader.getActiveCount() > 0) {
+            if (System.currentTimeMillis() > deadline) return false;
+            Thread.sleep(2);
+        }
+        return loader.shutdown(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void visibleWorkRunsBeforePrefetch() throws Exception {
+        IconLoader loader = new IconLoader(1, false);
+        CountDownLatch gate = new CountDownLatch(1);
+        List<String> order = new CopyOnWriteArrayList<>();
+        CountDownLatch started = new CountDownLatch(1);
+        loader.submit(IconLoader.Priority.VISIBLE, () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        loader.submit(IconLoader.Priority.PREFETCH, () -> order.add("p1"));
+        loader.submit(IconLoader.Priority.PREFETCH, () -> order.add("p2"));
+        IconLoader.Ticket late = loader.submit(IconLoader.Priority.PREFETCH, () -> order.add("promoted"));
+        loader.submit(IconLoader.Priority.VISIBLE, () -> order.add("v1"));
+        late.promote(IconLoader.Priority.VISIBLE);
+        assertEquals(4, loader.getQueueDepth());
+
+        gate.countDown();
+        assertTrue(awaitIdle(loader));
+        // a promoted job keeps its place in line among jobs of its new priority
+        assertEquals(List.of("promoted", "v1", "p1", "p2"), order);
+        assertEquals(5, loader.getCompletedCount());
+        assertTrue(loader.getMaxWaitNanos() > 0);
+    }
+
+    @Test
+    public void neverExceedsConcurrencyCap() throws Exception {
+        IconLoader loader = new IconLoader(3, false);
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger peak = new AtomicInteger();
+        for (int i = 0; i < 50; i++) {
+            loader.submit(IconLoader.Priority.VISIBLE, () -> {
+                peak.accumulateAndGet(running.incrementAndGet(), Math::max);
+                try {
+                    Thread.sleep(2);
+                } catch (InterruptedException ignored) {
+                }
+                running.decrementAndGet();
+            });
+        }
+        assertTrue(awaitIdle(loader));
+        assertEquals(50, loader.getCompletedCount());
+        assertTrue(peak.get() <= 3, "peak " + peak.get());
+    }
+
+    @Test
+    public void cancelledJobsNeverRunAndShutdownRejects() throws Exception {
+        IconLoader loader = new IconLoader(1, true);
+        CountDownLatch gate = new CountDownLatch(1);
+        AtomicInteger ran = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        loader.submit(IconLoader.Priority.VISIBLE, () -> {
+            started.countDown();
+            try {
+                gate.await();
+            } catch (InterruptedException ignored) {
+            }
+        });
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        IconLoader.Ticket t = loader.submit(IconLoader.Priority.VISIBLE, ran::incrementAndGet);
+        assertTrue(t.cancel());
+        assertEquals(0, loader.getQueueDepth());
+        gate.countDown();
+        assertTrue(loader.shutdown(5, TimeUnit.SECONDS));
+        assertEquals(0, ran.get());
+        assertEquals(1, loader.getCancelledCount());
+        assertThrows(RejectedExecutionException.class, () -> loader.submit(IconLoader.Priority.VISIBLE, () -> {}));
+    }
+}
@@ -0,0 +1,58 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.ImageIcon;
+import java.awt.image.BufferedImage;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IconMemoryCacheTest {
+
+    private static ImageIcon icon(int size) {
+        return new ImageIcon(new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsedOverByteBudget() {
+        // room for exactly three 10x10 icons
+        IconMemoryCache c = new IconMemoryCache(3 * 400, false);
+        c.put("a", icon(10));
+        c.put("b", icon(10));
+        c.put("c", icon(10));
+        assertNotNull(c.get("a")); // a is now most recently used
+        c.put("d", icon(10));
+
+        assertNull(c.get("b"));
+        assertNotNull(c.get("a"));
+        assertNotNull(c.get("c"));
+        assertNotNull(c.get("d"));
+        assertEquals(1200, c.getWeightBytes());
+        assertEquals(1, c.getEvictionCount());
+        assertEquals(4, c.getHitCount());
+        assertEquals(1, c.getMissCount());
+    }
+
+    @Test
+    public void weighsByPixelsNotEntries() {
+        IconMemoryCache c = new IconMemoryCache(120 * 120 * 4, false);
+        for (int i = 0; i < 100; i++) c.put("small" + i, icon(10));
+        c.put("large", icon(120));
+        assertTrue(c.getWeightBytes() <= c.getMaxBytes());
+        assertEquals(1, c.size());
+        assertNotNull(c.get("large"));
+    }
+
+    @Test
+    public void evictedIconsStaySoftlyReachable() {
+        IconMemoryCache c = new IconMemoryCache(400, true);
+        ImageIcon a = icon(10);
+        c.put("a", a);
+        c.put("b", icon(10));
+        assertEquals(1, c.size());
+        // a strong local reference keeps the soft referent alive
+        assertSame(a, c.get("a"));
+        assertEquals(1, c.getSoftHitCount());
+        assertEquals(400, c.getWeightBytes());
+    }
+}
@@ -0,0 +1,140 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.awt.image.BufferedImage;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class IconPackTest {
+
+    @TempDir
+    Path dir;
+
+    private static BufferedImage image(int size, int seed) {
+        BufferedImage img = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) img.setRGB(x, y, (x * 31 + y * 17 + seed) | (seed << 24));
+        }
+        return img;
+    }
+
+    private static void assertSamePixels(BufferedImage expected, BufferedImage actual) {
+        assertEquals(expected.getWidth(), actual.getWidth());
+        assertEquals(expected.getHeight(), actual.getHeight());
+        assertArrayEquals(expected.getRGB(0, 0, expected.getWidth(), expected.getHeight(), null, 0, expected.getWidth()),
+                actual.getRGB(0, 0, actual.getWidth(), actual.getHeight(), null, 0, actual.getWidth()));
+    }
+
+    @Test
+    public void roundTripsPixelsAcrossReopen() throws Exception {
+        Path file = dir.resolve("icons.pack");
+        BufferedImage a = image(48, 1);
+        BufferedImage b = image(48, 2);
+        try (IconPack pack = new IconPack(file)) {
+            pack.put("a", a);
+            pack.put("b", b);
+            assertSamePixels(a, pack.get("a"));
+            pack.remove("b");
+            assertNull(pack.get("b"));
+        }
+        try (IconPack pack = new IconPack(file)) {
+            assertEquals(1, pack.size());
+            assertSamePixels(a, pack.get("a"));
+            assertNull(pack.get("b"));
+        }
+    }
+
+    @Test
+    public void truncatesTornTail() throws Exception {
+        Path file = dir.resolve("icons.pack");
+        BufferedImage a = image(32, 3);
+        long goodSize;
+        try (IconPack pack = new IconPack(file)) {
+            pack.put("a", a);
+            goodSize = pack.getFileBytes();
+            pack.put("b", image(32, 4));
+        }
+        // simulate a crash halfway through the second append
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.truncate(goodSize + 100);
+        }
+        try (IconPack pack = new IconPack(file)) {
+            assertEquals(1, pack.size());
+            assertSamePixels(a, pack.get("a"));
+            assertEquals(goodSize, Files.size(file));
+            pack.put("c", image(32, 5));
+            assertNotNull(pack.get("c"));
+        }
+    }
+
+    @Test
+    public void compactionReclaimsSupersededRecords() throws Exception {
+        Path file = dir.resolve("icons.pack");
+        BufferedImage last = null;
+        try (IconPack pack = new IconPack(file)) {
+            // 64x64 records are 16 KiB; overwriting one key soon exceeds the dead-space threshold
+            for (int i = 0; i < 100; i++) {
+                last = image(64, i);
+                pack.put("same", last);
+                pack.put("other" + (i % 3), image(64, 100 + i));
+            }
+            assertTrue(pack.getCompactionCount() > 0);
+            assertTrue(pack.getDeadBytes() * 2 <= pack.getFileBytes() || pack.getDeadBytes() < 256 * 1024);
+            assertEquals(4, pack.size());
+            assertSamePixels(last, pack.get("same"));
+        }
+        try (IconPack pack = new IconPack(file)) {
+            assertEquals(4, pack.size());
+            assertSamePixels(last, pack.get("same"));
+        }
+    }
+
+    @Test
+    public void compactsInPlaceWhileMapped() throws Exception {
+        Path file = dir.resolve("icons.pack");
+        BufferedImage a = image(32, 6);
+        BufferedImage b = image(32, 8);
+        byte[] before;
+        long compacted;
+        try (IconPack pack = new IconPack(file)) {
+            pack.put("a", a);
+            pack.put("b", image(32, 7));
+            pack.put("b", b);
+            before = Files.readAllBytes(file);
+            // both the pack's own read mapping and one held elsewhere stay alive across the rewrite
+            assertSamePixels(a, pack.get("a"));
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                MappedByteBuffer held = ch.map(FileChannel.MapMode.READ_ONLY, 0, before.length);
+                pack.compact();
+                assertEquals(before[0], held.get(0));
+            }
+            assertEquals(1, pack.getCompactionCount());
+            compacted = pack.getFileBytes();
+            assertTrue(compacted < before.length);
+            assertEquals(compacted, Files.size(file));
+            assertSamePixels(a, pack.get("a"));
+            assertSamePixels(b, pack.get("b"));
+        }
+
+        // where a mapped file cannot shrink, superseded records stay behind the end marker:
+        // put the first record for "b" back there
+        int record = (int) (compacted - 8) / 2;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4), compacted);
+            ch.write(ByteBuffer.wrap(before, 8 + record, record), compacted + 4);
+        }
+        try (IconPack pack = new IconPack(file)) {
+            assertEquals(2, pack.size());
+            assertSamePixels(b, pack.get("b"));
+            assertEquals(compacted, Files.size(file));
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class LocationResolverTest {
+    private static final String LONDON = "[{\"id\":2801268,\"name\":\"London\",\"region\":\"City of London, Greater London\"," +
+            "\"country\":\"United Kingdom\",\"lat\":51.52,\"lon\":-0.11,\"url\":\"london-city-of-london-greater-london-united-kingdom\"}]";
+
+    @TempDir
+    Path dir;
+
+    @Test
+    public void normalizesSpellingAndCoordinates() {
+        assertEquals("london", LocationResolver.normalize("  London "));
+        assertEquals("london, uk", LocationResolver.normalize("London ,UK."));
+        assertEquals("new york", LocationResolver.normalize("New   York"));
+        assertEquals("51.5100,-0.1300", LocationResolver.normalize("51.51, -0.13"));
+        assertEquals("51.5074,-0.1278", LocationResolver.normalize("51.50735,-0.12776"));
+        assertEquals("", LocationResolver.normalize(null));
+    }
+
+    @Test
+    public void variantSpellingsShareOneForecastRequest() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        AtomicInteger forecasts = new AtomicInteger();
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> {
+                if (ex.getRequestURI().getPath().endsWith("/search.json")) {
+                    searches.incrementAndGet();
+                    return LONDON;
+                }
+                forecasts.incrementAndGet();
+                assertEquals("id:2801268", StubWeatherApi.query(ex).replace("%3A", ":"));
+                return StubWeatherApi.FORECAST_JSON;
+            };
+            Path file = dir.resolve("locations.json");
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, file);
+            for (String q : new String[]{"London", "london ", "London, UK", "LONDON,uk"}) {
+                assertEquals(10.5, ws.getWeather(q, "metric").getCurrent().getTemperature(), 0.01);
+            }
+            assertEquals(1, forecasts.get());
+            assertEquals(2, searches.get()); // "london" and "london, uk"
+            ws.getLocationResolver().save();
+
+            // the mapping survives a restart
+            WeatherService restarted = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, file);
+            restarted.getWeather("London", "metric");
+            assertEquals(2, searches.get());
+            assertEquals(2, forecasts.get());
+        }
+    }
+
+    @Test
+    public void unresolvedQueriesFallBackToTheTextAsTyped() throws Exception {
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> ex.getRequestURI().getPath().endsWith("/search.json") ? "[]" : StubWeatherApi.FORECAST_JSON;
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, dir.resolve("l.json"));
+            assertEquals("TestCity", ws.getWeather("Nowhere", "metric").getCurrent().getCityName());
+            assertNull(ws.getLocationResolver().cached("Nowhere"));
+        }
+    }
+
+    @Test
+    public void coordinatesAreSentWithoutASearch() throws Exception {
+        AtomicInteger searches = new AtomicInteger();
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> {
+                if (ex.getRequestURI().getPath().endsWith("/search.json")) {
+                    searches.incrementAndGet();
+                    return LONDON;
+                }
+                assertEquals("51.5074,-0.1278", StubWeatherApi.query(ex).replace("%2C", ","));
+                return StubWeatherApi.FORECAST_JSON;
+            };
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, dir.resolve("l.json"));
+            ws.getWeather("51.50735, -0.12776", "metric");
+            assertEquals(0, searches.get());
+            assertEquals(0, ws.getLocationResolver().size());
+        }
+    }
+
+    @Test
+    public void eachLookupCountsOneHit() throws Exception {
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> ex.getRequestURI().getPath().endsWith("/search.json") ? LONDON : StubWeatherApi.FORECAST_JSON;
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, dir.resolve("l.json"));
+            ws.getWeather("London", "metric");
+            assertEquals(0, ws.getLocationResolver().getHitCount());
+            ws.getWeather("London", "imperial");
+            assertEquals(1, ws.getLocationResolver().getHitCount());
+        }
+    }
+}
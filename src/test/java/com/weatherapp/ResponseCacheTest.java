@@ -0,0 +1,89 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ResponseCacheTest {
+
+    /** Clock that tests can move forward explicitly. */
+    private static class MutableClock extends Clock {
+        long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    @Test
+    public void expiresRelativeToLastUpdated() {
+        MutableClock clock = new MutableClock(1_600_000_000_000L);
+        ResponseCache<String> cache = new ResponseCache<>(Duration.ofMinutes(15), Duration.ofMinutes(1), 10, clock);
+        // observation is 10 minutes old, so the entry should live for 5 more minutes
+        cache.put("london", "body", 1_600_000_000L - 600);
+        clock.millis += Duration.ofMinutes(4).toMillis();
+        assertEquals("body", cache.get("london"));
+        clock.millis += Duration.ofMinutes(2).toMillis();
+        assertNull(cache.get("london"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void staleObservationStillCachedForMinFresh() {
+        MutableClock clock = new MutableClock(1_600_000_000_000L);
+        ResponseCache<String> cache = new ResponseCache<>(Duration.ofMinutes(15), Duration.ofMinutes(1), 10, clock);
+        cache.put("paris", "body", 1_600_000_000L - 3600);
+        clock.millis += 30_000;
+        assertEquals("body", cache.get("paris"));
+    }
+
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        ResponseCache<String> cache = new ResponseCache<>(Duration.ofMinutes(15), 2);
+        cache.put("a", "A", 0);
+        cache.put("b", "B", 0);
+        cache.get("a");
+        cache.put("c", "C", 0);
+        assertNull(cache.get("b"));
+        assertEquals("A", cache.get("a"));
+        assertEquals(1, cache.getEvictionCount());
+    }
+
+    @Test
+    public void lookupsAcrossKeysCountOnce() {
+        ResponseCache<String> cache = new ResponseCache<>(Duration.ofMinutes(15), 10);
+        assertNull(cache.getFirst("forecast:london", "current:london"));
+        cache.put("current:london", "cur", 0);
+        assertEquals("cur", cache.getFirst("forecast:london", "current:london"));
+        assertEquals("cur", cache.peek("current:london"));
+        assertNull(cache.peek("forecast:london"));
+        assertEquals(1, cache.getHitCount());
+        assertEquals(1, cache.getMissCount());
+    }
+
+    @Test
+    public void normalizeKey_collapsesCaseAndWhitespace() {
+        assertEquals("new york", ResponseCache.normalizeKey("  New   York "));
+    }
+}
@@ -0,0 +1,62 @@
+package com.weatherapp;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class SingleFlightTest {
+
+    @Test
+    public void concurrentCallersShareOneOperation() throws Exception {
+        SingleFlight<String, String> sf = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        AtomicInteger loads = new AtomicInteger();
+        List<CompletableFuture<String>> callers = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            callers.add(sf.execute("london", () -> {
+                loads.incrementAndGet();
+                return upstream;
+            }));
+        }
+        upstream.complete("body");
+        for (CompletableFuture<String> f : callers) assertEquals("body", f.get());
+        assertEquals(1, loads.get());
+        assertEquals(9, sf.getCoalescedCount());
+        assertEquals(0, sf.getInFlightCount());
+    }
+
+    @Test
+    public void errorsReachEveryCaller() {
+        SingleFlight<String, String> sf = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = sf.execute("x", () -> upstream);
+        CompletableFuture<String> b = sf.execute("x", () -> upstream);
+        upstream.completeExceptionally(new IOException("boom"));
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, a::get).getCause());
+        assertInstanceOf(IOException.class, assertThrows(ExecutionException.class, b::get).getCause());
+    }
+
+    @Test
+    public void upstreamCancelledOnlyWhenEveryCallerCancels() throws Exception {
+        SingleFlight<String, String> sf = new SingleFlight<>();
+        CompletableFuture<String> upstream = new CompletableFuture<>();
+        CompletableFuture<String> a = sf.execute("x", () -> upstream);
+        CompletableFuture<String> b = sf.execute("x", () -> upstream);
+        a.cancel(true);
+        assertFalse(upstream.isCancelled());
+        b.cancel(true);
+        assertTrue(upstream.isCancelled());
+
+        // a later caller starts a fresh operation
+        CompletableFuture<String> c = sf.execute("x", () -> CompletableFuture.completedFuture("again"));
+        assertEquals("again", c.get());
+        assertEquals(2, sf.getStartedCount());
+    }
+}
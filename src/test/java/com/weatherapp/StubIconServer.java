@@ -0,0 +1,69 @@
+package com.weatherapp;
+
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Local HTTP server answering every path with a small PNG; counts requests per path.
+ * Paths containing "missing" are answered with 404.
+ */
+class StubIconServer implements AutoCloseable {
+    final AtomicInteger requests = new AtomicInteger();
+    final ConcurrentHashMap<String, AtomicInteger> requestsByPath = new ConcurrentHashMap<>();
+    volatile long delayMillis;
+
+    private final HttpServer server;
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+    private final byte[] png;
+
+    StubIconServer() throws IOException {
+        BufferedImage img = new BufferedImage(64, 64, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < 64; y++) {
+            for (int x = 0; x < 64; x++) img.setRGB(x, y, 0xFF000000 | (x * 4 << 16) | (y * 4 << 8));
+        }
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ImageIO.write(img, "png", out);
+        png = out.toByteArray();
+
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            String path = exchange.getRequestURI().getPath();
+            requests.incrementAndGet();
+            requestsByPath.computeIfAbsent(path, k -> new AtomicInteger()).incrementAndGet();
+            try {
+                if (delayMillis > 0) Thread.sleep(delayMillis);
+                if (path.contains("missing")) {
+                    exchange.sendResponseHeaders(404, -1);
+                } else {
+                    exchange.sendResponseHeaders(200, png.length);
+                    exchange.getResponseBody().write(png);
+                }
+            } catch (Exception ignored) {
+                // client went away
+            } finally {
+                exchange.close();
+            }
+        });
+        server.setExecutor(pool);
+        server.start();
+    }
+
+    String url(String name) {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/" + name + ".png";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+}
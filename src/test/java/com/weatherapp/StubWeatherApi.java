@@ -0,0 +1,81 @@
+package com.weatherapp;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Local HTTP stub of the WeatherAPI endpoints used by the service tests.
+ * Tracks the number of requests and the peak number of concurrent requests.
+ */
+class StubWeatherApi implements AutoCloseable {
+    static final String FORECAST_JSON = "{" +
+            "\"location\": { \"name\": \"TestCity\", \"country\": \"TC\" }," +
+            "\"current\": { \"temp_c\": 10.5, \"temp_f\": 50.9, \"humidity\": 80, \"wind_kph\": 10.8, \"wind_mph\": 6.7, \"last_updated_epoch\": 1600000000, \"condition\": { \"text\": \"Sunny\", \"icon\": \"//cdn.weatherapi.com/icons/sunny.png\" } }," +
+            "\"forecast\": { \"forecastday\": [ { \"hour\": [ { \"time_epoch\": 1600003600, \"temp_c\": 11.0, \"temp_f\": 51.8, \"condition\": { \"text\": \"Cloudy\", \"icon\": \"//cdn.weatherapi.com/icons/cloudy.png\" } } ] } ] }" +
+            "}";
+
+    final AtomicInteger requests = new AtomicInteger();
+    final AtomicInteger inFlight = new AtomicInteger();
+    final AtomicInteger peakInFlight = new AtomicInteger();
+    volatile long delayMillis;
+    /** Produces the response body for an exchange; return null to answer 400. */
+    volatile Function<HttpExchange, String> responder = ex -> FORECAST_JSON;
+
+    private final HttpServer server;
+    private final ExecutorService pool = Executors.newCachedThreadPool();
+
+    StubWeatherApi() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", exchange -> {
+            requests.incrementAndGet();
+            int now = inFlight.incrementAndGet();
+            peakInFlight.accumulateAndGet(now, Math::max);
+            try {
+                if (delayMillis > 0) Thread.sleep(delayMillis);
+                String body = responder.apply(exchange);
+                byte[] bytes = (body != null ? body : "{\"error\":{\"code\":1006,\"message\":\"No matching location found.\"}}")
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.sendResponseHeaders(body != null ? 200 : 400, bytes.length);
+                exchange.getResponseBody().write(bytes);
+            } catch (Exception ignored) {
+                // client went away
+            } finally {
+                inFlight.decrementAndGet();
+                exchange.close();
+            }
+        });
+        server.setExecutor(pool);
+        server.start();
+    }
+
+    WeatherService newService() {
+        return new WeatherService("test-key", baseUrl(), null, Duration.ofMinutes(15), 500);
+    }
+
+    String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/v1";
+    }
+
+    static String query(HttpExchange exchange) {
+        String raw = exchange.getRequestURI().getQuery();
+        for (String part : raw.split("&")) {
+            if (part.startsWith("q=")) return part.substring(2);
+        }
+        return "";
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        pool.shutdownNow();
+    }
+}
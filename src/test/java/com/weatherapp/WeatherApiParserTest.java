@@ -2,6 +2,7 @@ package com.weatherapp;
 
 import com.weatherapp.models.ForecastEntry;
 import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
 import org.junit.jupiter.api.Test;
 
 import java.util.List;
@@ -40,4 +41,19 @@ public class WeatherApiParserTest {
         assertEquals("Cloudy", fe.getDescription());
         assertTrue(fe.getIcon().startsWith("https:"));
     }
+
+    @Test
+    public void parseReport_currentAndForecastFromOnePayload() {
+        String json = "{\n" +
+                "  \"location\": { \"name\": \"TestCity\", \"country\": \"TC\" },\n" +
+                "  \"current\": { \"temp_c\": 10.5, \"temp_f\": 50.9, \"humidity\": 80, \"wind_kph\": 10.8, \"wind_mph\": 6.7, \"last_updated_epoch\": 1600000000, \"condition\": { \"text\": \"Sunny\", \"icon\": \"//cdn.weatherapi.com/icons/sunny.png\" } },\n" +
+                "  \"forecast\": { \"forecastday\": [ { \"hour\": [ { \"time_epoch\": 1600003600, \"temp_c\": 11.0, \"temp_f\": 51.8, \"condition\": { \"text\": \"Cloudy\", \"icon\": \"//cdn.weatherapi.com/icons/cloudy.png\" } } ] } ] }\n" +
+                "}";
+
+        WeatherReport report = WeatherApiParser.parseReport(json, "imperial");
+        assertEquals("TestCity", report.getCurrent().getCityName());
+        assertEquals(50.9, report.getCurrent().getTemperature(), 0.001);
+        assertEquals(1, report.getForecast().size());
+        assertEquals(51.8, report.getForecast().get(0).getTemperature(), 0.001);
+    }
 }
@@ -0,0 +1,94 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ForecastEntry;
+import com.weatherapp.models.Units;
+import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherSnapshot;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherApiStreamParserTest {
+
+    /** A forecast payload with the extra blocks the streaming parser is expected to skip. */
+    private static String forecastJson(int days) {
+        StringBuilder sb = new StringBuilder();
+        sb.append("{\"location\":{\"name\":\"TestCity\",\"region\":\"R\",\"country\":\"TC\",\"lat\":1.0,\"lon\":2.0,\"localtime_epoch\":1599999000},");
+        sb.append("\"current\":{\"last_updated_epoch\":1600000000,\"temp_c\":10.5,\"temp_f\":50.9,\"is_day\":1,");
+        sb.append("\"condition\":{\"text\":\"Sunny\",\"icon\":\"//cdn.weatherapi.com/weather/64x64/day/113.png\",\"code\":1000},");
+        sb.append("\"wind_mph\":6.7,\"wind_kph\":10.8,\"humidity\":80,\"feelslike_c\":9.0,\"feelslike_f\":48.2},");
+        sb.append("\"forecast\":{\"forecastday\":[");
+        for (int d = 0; d < days; d++) {
+            if (d > 0) sb.append(',');
+            sb.append("{\"date\":\"2020-09-13\",\"date_epoch\":1599955200,");
+            sb.append("\"day\":{\"maxtemp_c\":20.0,\"condition\":{\"text\":\"Sunny\",\"icon\":\"x\",\"code\":1000}},");
+            sb.append("\"astro\":{\"sunrise\":\"06:00 AM\",\"sunset\":\"07:00 PM\"},\"hour\":[");
+            for (int h = 0; h < 24; h++) {
+                if (h > 0) sb.append(',');
+                long ts = 1600000000L + (d * 24L + h) * 3600;
+                sb.append("{\"time_epoch\":").append(ts).append(",\"time\":\"t\",\"temp_c\":").append(h)
+                        .append(",\"temp_f\":").append(32 + h * 1.8)
+                        .append(",\"condition\":{\"text\":\"Cloudy\",\"icon\":\"//cdn.weatherapi.com/weather/64x64/day/119.png\",\"code\":1006},")
+                        .append("\"feelslike_c\":1.0,\"chance_of_rain\":0}");
+            }
+            sb.append("]}");
+        }
+        return sb.append("]}}").toString();
+    }
+
+    @Test
+    public void matchesTreeParser() throws Exception {
+        String json = forecastJson(2);
+        WeatherSnapshot snap = WeatherApiStreamParser.parse(
+                new ByteArrayInputStream(json.getBytes(StandardCharsets.UTF_8)), Integer.MAX_VALUE);
+
+        for (String units : new String[]{"metric", "imperial"}) {
+            WeatherData tree = WeatherApiParser.parseCurrent(json, units);
+            WeatherData stream = snap.current().toWeatherData(Units.of(units));
+            assertEquals(tree.getCityName(), stream.getCityName());
+            assertEquals(tree.getCountry(), stream.getCountry());
+            // values are stored once in °C and m/s and projected, so allow rounding slack
+            assertEquals(tree.getTemperature(), stream.getTemperature(), 0.051);
+            assertEquals(tree.getWindSpeed(), stream.getWindSpeed(), 0.051);
+            assertEquals(tree.getHumidity(), stream.getHumidity());
+            assertEquals(tree.getDescription(), stream.getDescription());
+            assertEquals(tree.getIcon(), stream.getIcon());
+            assertEquals(tree.getTimestamp(), stream.getTimestamp());
+
+            List<ForecastEntry> treeHours = WeatherApiParser.parseForecast(json, units);
+            List<ForecastEntry> streamHours = snap.hourly(Units.of(units), Integer.MAX_VALUE).asList();
+            assertEquals(treeHours.size(), streamHours.size());
+            for (int i = 0; i < treeHours.size(); i++) {
+                assertEquals(treeHours.get(i).getTimestamp(), streamHours.get(i).getTimestamp());
+                assertEquals(treeHours.get(i).getTemperature(), streamHours.get(i).getTemperature(), 0.051);
+                assertEquals(treeHours.get(i).getIcon(), streamHours.get(i).getIcon());
+            }
+        }
+    }
+
+    @Test
+    public void stopsAfterMaxHours() throws Exception {
+        WeatherSnapshot snap = WeatherApiStreamParser.parse(new StringReader(forecastJson(3)), 5);
+        assertEquals(5, snap.forecast().size());
+        assertEquals(1600000000L, snap.current().timestamp());
+        assertEquals(1600000000L + 4 * 3600, snap.forecast().getTimestamp(4));
+    }
+
+    @Test
+    public void stopsAfterMaxHoursWhenForecastComesFirst() throws Exception {
+        String json = forecastJson(3);
+        int forecastAt = json.indexOf("\"forecast\":");
+        // same payload with the forecast block moved ahead of location and current
+        String reordered = "{" + json.substring(forecastAt, json.length() - 1) + "," + json.substring(1, forecastAt - 1) + "}";
+        WeatherSnapshot snap = WeatherApiStreamParser.parse(new StringReader(reordered), 5);
+        assertEquals(5, snap.forecast().size());
+        assertEquals("TestCity", snap.current().cityName());
+        assertEquals(1600000000L, snap.current().timestamp());
+        assertEquals(10.5, snap.current().temperatureC(), 0.001);
+    }
+}
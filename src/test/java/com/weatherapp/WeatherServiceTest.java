@@ -0,0 +1,101 @@
+package com.weatherapp;
+
+import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherReport;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.net.http.HttpTimeoutException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Exercises WeatherService against a local stub of the WeatherAPI endpoints.
+ */
+public class WeatherServiceTest {
+    private StubWeatherApi api;
+
+    @BeforeEach
+    public void startServer() throws Exception {
+        api = new StubWeatherApi();
+    }
+
+    @AfterEach
+    public void stopServer() {
+        api.close();
+    }
+
+    @Test
+    public void asyncReportIsCachedAcrossUnits() throws Exception {
+        WeatherService ws = api.newService();
+        WeatherReport metric = ws.getWeatherAsync("TestCity", "metric").get(5, TimeUnit.SECONDS);
+        assertEquals(10.5, metric.getCurrent().getTemperature(), 0.001);
+
+        WeatherData imperial = ws.getCurrentWeather(" testcity ", "imperial");
+        assertEquals(50.9, imperial.getTemperature(), 0.001);
+        assertEquals(1, api.requests.get());
+        assertEquals(1, ws.getCache().getHitCount());
+    }
+
+    @Test
+    public void currentLookupsCountOneHitOrMiss() throws Exception {
+        WeatherService ws = api.newService();
+        ws.getCurrentWeather("TestCity", "metric");
+        ws.getCurrentWeather("TestCity", "imperial");
+        assertEquals(1, api.requests.get());
+        assertEquals(1, ws.getCache().getMissCount());
+        assertEquals(1, ws.getCache().getHitCount());
+    }
+
+    @Test
+    public void perRequestTimeoutFailsTheFuture() {
+        api.delayMillis = 2000;
+        WeatherService ws = api.newService();
+        CompletableFuture<WeatherData> f = ws.getCurrentWeatherAsync("Slow", "metric", Duration.ofMillis(200));
+        ExecutionException ex = assertThrows(ExecutionException.class, () -> f.get(5, TimeUnit.SECONDS));
+        assertInstanceOf(HttpTimeoutException.class, ex.getCause());
+    }
+
+    @Test
+    public void cancellingPropagatesToTheExchange() {
+        CompletableFuture<String> exchange = new CompletableFuture<>();
+        CompletableFuture<Integer> chained = WeatherService.chain(exchange, String::length);
+        chained.cancel(true);
+        assertTrue(exchange.isCancelled());
+
+        // compose reaches the upstream stage while it is pending...
+        CompletableFuture<String> resolving = new CompletableFuture<>();
+        CompletableFuture<String> fetching = new CompletableFuture<>();
+        CompletableFuture<String> composed = WeatherService.compose(resolving, q -> fetching);
+        composed.cancel(true);
+        assertTrue(resolving.isCancelled());
+
+        // ...and the inner exchange once the upstream stage has completed
+        CompletableFuture<String> resolved = new CompletableFuture<>();
+        CompletableFuture<String> inner = new CompletableFuture<>();
+        CompletableFuture<String> later = WeatherService.compose(resolved, q -> inner);
+        resolved.complete("id:1");
+        later.cancel(true);
+        assertTrue(inner.isCancelled());
+    }
+
+    @Test
+    public void concurrentIdenticalLookupsAreCoalesced() throws Exception {
+        api.delayMillis = 200;
+        WeatherService ws = api.newService();
+        List<CompletableFuture<WeatherReport>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) futures.add(ws.getWeatherAsync(i % 2 == 0 ? "London" : " LONDON", "metric"));
+        for (CompletableFuture<WeatherReport> f : futures) {
+            assertEquals("TestCity", f.get(5, TimeUnit.SECONDS).getCurrent().getCityName());
+        }
+        assertEquals(1, api.requests.get());
+        assertEquals(7, ws.getCoalescedRequestCount());
+    }
+}
@@ -0,0 +1,45 @@
+package com.weatherapp;
+
+import com.weatherapp.models.ConditionRegistry;
+import com.weatherapp.models.CurrentConditions;
+import com.weatherapp.models.ForecastSeries;
+import com.weatherapp.models.Units;
+import com.weatherapp.models.WeatherData;
+import com.weatherapp.models.WeatherSnapshot;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherSnapshotTest {
+
+    @Test
+    public void projectsCanonicalValuesOnRead() {
+        short sunny = ConditionRegistry.shared().intern(1000, true, "Sunny", "//cdn.weatherapi.com/weather/64x64/day/113.png");
+        CurrentConditions cc = new CurrentConditions("Oslo", "Norway", 20.0, 55, 10.0, sunny, 1600000000L);
+
+        assertEquals(20.0, cc.temperature(Units.METRIC), 0.0001);
+        assertEquals(68.0, cc.temperature(Units.IMPERIAL), 0.0001);
+        assertEquals(10.0, cc.windSpeed(Units.METRIC), 0.0001);
+        assertEquals(22.37, cc.windSpeed(Units.IMPERIAL), 0.01);
+
+        WeatherData wd = cc.toWeatherData(Units.IMPERIAL);
+        assertEquals("Sunny", wd.getDescription());
+        assertEquals(1000, wd.getConditionCode());
+        assertEquals(55, wd.getHumidity());
+    }
+
+    @Test
+    public void oneSnapshotServesBothUnitSystems() {
+        ForecastSeries.Builder b = new ForecastSeries.Builder();
+        b.add(1600000000L, 0.0, "Clear", "");
+        b.add(1600003600L, 100.0, "Clear", "");
+        CurrentConditions cc = new CurrentConditions("X", "Y", 0.0, 0, 0.0, (short) -1, 1600000000L);
+        WeatherSnapshot snap = new WeatherSnapshot(cc, b.build(), 1);
+
+        assertEquals(32.0, snap.hourly(Units.IMPERIAL, 24).get(0).getTemperature(), 0.0001);
+        assertEquals(212.0, snap.toReport(Units.IMPERIAL, 24).getForecast().get(1).getTemperature(), 0.0001);
+        assertEquals(100.0, snap.toReport(Units.METRIC, 24).getForecast().get(1).getTemperature(), 0.0001);
+        assertEquals("", snap.current().description());
+        assertEquals(3, snap.withForecastDays(3).forecastDays());
+    }
+}
@@ -0,0 +1,253 @@
+package com.weatherapp;
+
+import com.weatherapp.models.Units;
+import com.weatherapp.models.WeatherReport;
+import com.weatherapp.models.WeatherSnapshot;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class WeatherStoreTest {
+
+    @TempDir
+    Path dir;
+
+    /** Clock that tests can move forward explicitly. */
+    private static class MutableClock extends Clock {
+        long millis;
+
+        MutableClock(long millis) {
+            this.millis = millis;
+        }
+
+        @Override
+        public ZoneOffset getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(java.time.ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return Instant.ofEpochMilli(millis);
+        }
+    }
+
+    private static WeatherSnapshot snapshot(String json, int days) throws Exception {
+        return WeatherApiStreamParser.parse(new StringReader(json), days * 24).withForecastDays(days);
+    }
+
+    private static String forecastJson(long lastUpdated) {
+        return StubWeatherApi.FORECAST_JSON.replace("1600000000", Long.toString(lastUpdated));
+    }
+
+    @Test
+    public void roundTripsSnapshotsAcrossReopen() throws Exception {
+        Path file = dir.resolve("weather.store");
+        WeatherSnapshot s = snapshot(StubWeatherApi.FORECAST_JSON, 2);
+        try (WeatherStore store = new WeatherStore(file)) {
+            store.put("forecast:london", s);
+            store.put("forecast:london", s); // superseded record
+        }
+        try (WeatherStore store = new WeatherStore(file)) {
+            assertEquals(1, store.size());
+            WeatherSnapshot r = store.get("forecast:london").snapshot();
+            assertEquals(s.current(), r.current());
+            assertEquals(2, r.forecastDays());
+            assertEquals(1, r.forecast().size());
+            assertEquals(1600003600L, r.forecast().getTimestamp(0));
+            assertEquals(11.0, r.forecast().getTemperature(0, Units.METRIC), 0.01);
+            assertEquals("Cloudy", r.forecast().getDescription(0));
+            assertEquals(s.forecast().getIcon(0), r.forecast().getIcon(0));
+            assertNull(store.get("forecast:paris"));
+        }
+    }
+
+    @Test
+    public void expiresOldEntriesAndCapsSize() throws Exception {
+        MutableClock clock = new MutableClock(1_700_000_000_000L);
+        WeatherSnapshot s = snapshot(StubWeatherApi.FORECAST_JSON, 1);
+        try (WeatherStore store = new WeatherStore(dir.resolve("w.store"), 8192, Duration.ofHours(1), clock)) {
+            store.put("a", s);
+            clock.millis += Duration.ofMinutes(61).toMillis();
+            assertNull(store.get("a"));
+
+            for (int i = 0; i < 200; i++) {
+                clock.millis += 1000;
+                store.put("city-" + i, s);
+            }
+            assertTrue(store.getEvictionCount() > 0);
+            assertTrue(store.getFileBytes() <= 8192, "file is " + store.getFileBytes() + " bytes");
+            assertNotNull(store.get("city-199"));
+            assertNull(store.get("city-0"));
+        }
+    }
+
+    @Test
+    public void truncatesTornTail() throws Exception {
+        Path file = dir.resolve("weather.store");
+        long goodSize;
+        try (WeatherStore store = new WeatherStore(file)) {
+            store.put("a", snapshot(StubWeatherApi.FORECAST_JSON, 1));
+            goodSize = store.getFileBytes();
+        }
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ch.write(ByteBuffer.wrap(new byte[]{100, 0, 0, 0, 1, 2, 3}));
+        }
+        try (WeatherStore store = new WeatherStore(file)) {
+            assertNotNull(store.get("a"));
+            assertEquals(goodSize, Files.size(file));
+        }
+    }
+
+    @Test
+    public void compactsInPlaceWhileMapped() throws Exception {
+        MutableClock clock = new MutableClock(1_700_000_000_000L);
+        Path file = dir.resolve("weather.store");
+        WeatherSnapshot s = snapshot(StubWeatherApi.FORECAST_JSON, 1);
+        byte[] before;
+        long compacted;
+        try (WeatherStore store = new WeatherStore(file, WeatherStore.DEFAULT_MAX_BYTES, Duration.ofDays(1), clock)) {
+            store.put("b", s);
+            for (int i = 0; i < 5; i++) {
+                clock.millis += 1000;
+                store.put("a", s);
+            }
+            before = Files.readAllBytes(file);
+            // both the store's own read mapping and one held elsewhere stay alive across the rewrite
+            assertNotNull(store.get("b"));
+            try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+                java.nio.MappedByteBuffer held = ch.map(FileChannel.MapMode.READ_ONLY, 0, before.length);
+                store.compact();
+                assertEquals(before[0], held.get(0));
+            }
+            assertEquals(1, store.getCompactionCount());
+            compacted = store.getFileBytes();
+            assertTrue(compacted < before.length);
+            assertEquals(compacted, Files.size(file));
+            assertEquals(clock.millis, store.get("a").storedAtMillis());
+            assertNotNull(store.get("b"));
+        }
+
+        // where a mapped file cannot shrink, superseded records stay behind the end marker:
+        // put the first record for "a" back there
+        int record = (int) (compacted - 8) / 2;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            ch.write(ByteBuffer.allocate(4), compacted);
+            ch.write(ByteBuffer.wrap(before, 8 + record, record), compacted + 4);
+        }
+        try (WeatherStore store = new WeatherStore(file, WeatherStore.DEFAULT_MAX_BYTES, Duration.ofDays(1), clock)) {
+            assertEquals(2, store.size());
+            assertEquals(clock.millis, store.get("a").storedAtMillis());
+            assertEquals(compacted, Files.size(file));
+        }
+    }
+
+    @Test
+    public void opensReadOnlyWhileAnotherWriterHoldsTheLock() throws Exception {
+        Path file = dir.resolve("weather.store");
+        WeatherSnapshot s = snapshot(StubWeatherApi.FORECAST_JSON, 1);
+        try (WeatherStore store = new WeatherStore(file)) {
+            assertFalse(store.isReadOnly());
+            store.put("a", s);
+        }
+        long bytes = Files.size(file);
+        // stands in for another process that has the store open for writing
+        try (FileChannel other = FileChannel.open(dir.resolve("weather.store.lock"), StandardOpenOption.WRITE);
+             java.nio.channels.FileLock held = other.lock();
+             WeatherStore store = new WeatherStore(file)) {
+            assertTrue(store.isReadOnly());
+            assertNotNull(store.get("a"));
+            assertThrows(java.io.IOException.class, () -> store.put("b", s));
+            assertEquals(bytes, Files.size(file));
+        }
+        try (WeatherStore store = new WeatherStore(file)) {
+            assertFalse(store.isReadOnly());
+        }
+    }
+
+    @Test
+    public void servesStoredSnapshotsAfterRestartAndWhenOffline() throws Exception {
+        Path storeFile = dir.resolve("weather.store");
+        long now = System.currentTimeMillis() / 1000;
+        String baseUrl;
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> forecastJson(now);
+            baseUrl = api.baseUrl();
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, null, storeFile);
+            assertFalse(ws.getWeather("London", "metric").isOffline());
+            ws.shutdown();
+
+            // a fresh process answers from the store without a request
+            WeatherService restarted = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, null, storeFile);
+            assertEquals(10.5, restarted.getWeather("london", "metric").getCurrent().getTemperature(), 0.01);
+            assertEquals(10.5, restarted.getCurrentWeather("London", "metric").getTemperature(), 0.01);
+            assertEquals(1, api.requests.get());
+            assertEquals(1, restarted.getStoreHitCount());
+            restarted.shutdown();
+        }
+
+        // stale data is refetched, but served anyway when the network is down
+        WeatherService offline = new WeatherService("test-key", baseUrl, null, Duration.ofMillis(1), 50, null, storeFile);
+        WeatherReport saved = offline.getWeather("London", "metric");
+        assertEquals(10.5, saved.getCurrent().getTemperature(), 0.01);
+        assertTrue(saved.isOffline());
+        assertEquals(1, offline.getOfflineHitCount());
+        assertEquals(0, offline.getStoreHitCount());
+        assertThrows(java.io.IOException.class, () -> offline.getWeather("Paris", "metric"));
+        offline.shutdown();
+
+        // startup paints the last snapshot, stale but within the store's max age, without touching the network
+        WeatherService startup = new WeatherService("test-key", baseUrl, null, Duration.ofMillis(1), 50, null, storeFile);
+        WeatherSnapshot last = startup.getLastKnown("London");
+        assertNotNull(last);
+        assertEquals(now, last.current().timestamp());
+        assertNull(startup.getLastKnown("Paris"));
+        startup.shutdown();
+    }
+
+    @Test
+    public void fallbackSnapshotsAreNeitherCachedNorReusedNearby() throws Exception {
+        Path storeFile = dir.resolve("weather.store");
+        String json = forecastJson(System.currentTimeMillis() / 1000);
+        try (StubWeatherApi api = new StubWeatherApi()) {
+            api.responder = ex -> json;
+            WeatherService ws = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMinutes(15), 50, null, storeFile);
+            ws.getWeather("51.5000,-0.1200", "metric");
+            ws.shutdown();
+
+            // a TTL of 1 ms makes the stored snapshot stale, so the next lookup has to fetch
+            WeatherService restarted = new WeatherService("test-key", api.baseUrl(), null, Duration.ofMillis(1), 50, null, storeFile);
+            api.delayMillis = 1000;
+            restarted.getWeatherAsync("51.5000,-0.1200", "metric", Duration.ofMillis(200)).get();
+            assertEquals(1, restarted.getOfflineHitCount());
+
+            api.delayMillis = 0;
+            int before = api.requests.get();
+            // the fallback was not indexed for nearby reuse...
+            restarted.getWeather("51.5010,-0.1210", "metric");
+            assertEquals(before + 1, api.requests.get());
+            assertEquals(0, restarted.getNearbyHitCount());
+            // ...nor cached under its own key
+            restarted.setNearbyReuse(0, Duration.ofMinutes(10));
+            restarted.getWeather("51.5000,-0.1200", "metric");
+            assertEquals(before + 2, api.requests.get());
+            restarted.shutdown();
+        }
+    }
+}